@@ -5,16 +5,20 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
-abstract class AbstractConcurrentGraph<V, E> implements Graph<V, E> {
+abstract class AbstractConcurrentGraph<V, E> implements Graph<V, E>, ReadableGraph<V, E> {
     private final AbstractGraphFactory<V, E> factory;
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
 
     protected final Lock readLock = lock.readLock();
-    protected final Lock writeLock = lock.writeLock();
+    protected final Lock writeLock = GraphEvents.monitorWaits(lock.writeLock(), getClass().getSimpleName(), -1);
     protected final GraphMap<V, E> map;
 
     public AbstractConcurrentGraph() {
@@ -102,6 +106,57 @@ abstract class AbstractConcurrentGraph<V, E> implements Graph<V, E> {
         }
     }
 
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        boolean removed;
+        boolean needsCompaction;
+        writeLock.lock();
+        try {
+            removed = map.removeVertex(vertex);
+            needsCompaction = removed && map.needsCompaction();
+        } finally {
+            writeLock.unlock();
+        }
+        if (needsCompaction) {
+            scheduleCompaction();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        boolean removed;
+        boolean needsCompaction;
+        writeLock.lock();
+        try {
+            removed = map.removeEdge(edge);
+            needsCompaction = removed && map.needsCompaction();
+        } finally {
+            writeLock.unlock();
+        }
+        if (needsCompaction) {
+            scheduleCompaction();
+        }
+        return removed;
+    }
+
+    /*
+     * Reclaims tombstones and oversized adjacency maps left by removals. Runs on a background
+     * thread once the map reports enough garbage; may also be called directly.
+     */
+    public void compact() {
+        writeLock.lock();
+        try {
+            map.compact();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void scheduleCompaction() {
+        Compactor.schedule(compactionScheduled, this::compact);
+    }
+
     @Override
     @Contract(pure = true)
     public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
@@ -135,6 +190,17 @@ abstract class AbstractConcurrentGraph<V, E> implements Graph<V, E> {
         }
     }
 
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> connectingEdges(@NotNull V vertex1, @NotNull V vertex2) {
+        readLock.lock();
+        try {
+            return map.connectingEdges(vertex1, vertex2);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     @Override
     @Contract(pure = true)
     public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex) {
@@ -146,61 +212,67 @@ abstract class AbstractConcurrentGraph<V, E> implements Graph<V, E> {
         }
     }
 
-    private @NotNull List<V> getPathUnsafe(@NotNull V fromVertex, @NotNull V toVertex) {
-        if (!isVertex(fromVertex) || !isVertex(toVertex)) {
-            return Collections.emptyList();
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                    @NotNull Predicate<? super V> vertexFilter,
+                                    @NotNull Predicate<? super E> edgeFilter,
+                                    int maxDepth) {
+        readLock.lock();
+        try {
+            if (!map.isVertex(fromVertex) || !map.isVertex(toVertex)) {
+                return Collections.emptyList();
+            }
+            return PathFinder.findPath(fromVertex, toVertex, map::incidentEdges,
+                    (vertex, edge) -> PathFinder.opposite(map.incidentVertices(edge), vertex),
+                    vertexFilter, edgeFilter, maxDepth);
+        } finally {
+            readLock.unlock();
         }
+    }
 
-        Queue<VertexNode> vertexQueue = new ArrayDeque<>();
-        for (V vertex : map.adjacentVertices(fromVertex)) {
-            vertexQueue.add(new VertexNode(vertex, null));
-        }
-        Set<V> vertexMarker = new HashSet<>();
-        VertexNode node;
-        while ((node = vertexQueue.poll()) != null) {
-            if (node.vertex.equals(toVertex)) {
-                return pathTrace(fromVertex, node);
-            }
-            if (vertexMarker.contains(node.vertex)) {
-                continue;
-            }
-            vertexMarker.add(node.vertex);
-            for (V adjacentVertex : map.adjacentVertices(node.vertex)) {
-                if (!vertexMarker.contains(adjacentVertex)) {
-                    vertexQueue.add(new VertexNode(adjacentVertex, node));
-                }
+    @Override
+    @Contract(pure = true)
+    public @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit, boolean withEdges) {
+        readLock.lock();
+        try {
+            if (!map.isVertex(vertex)) {
+                return Neighbourhood.empty();
             }
+            return Neighbourhood.collect(vertex, maxHops, limit, withEdges, isDirectedGraph(), map::incidentEdges,
+                    (from, edge) -> PathFinder.opposite(map.incidentVertices(edge), from));
+        } finally {
+            readLock.unlock();
         }
-
-        return Collections.emptyList();
     }
 
-    private @NotNull List<V> pathTrace(@NotNull V fromVertex, VertexNode node) {
-        VertexNode prevNode = null;
-        while(node != null) {
-            VertexNode nextNode = node.prevNode;
-            node.prevNode = prevNode;
-            prevNode = node;
-            node = nextNode;
+    @Override
+    public <R> R readMap(@NotNull Function<? super GraphMap<V, E>, ? extends R> reader) {
+        readLock.lock();
+        try {
+            return reader.apply(map);
+        } finally {
+            readLock.unlock();
         }
-        node = prevNode;
+    }
 
-        List<V> result = new ArrayList<>();
-        result.add(fromVertex);
-        while(node != null) {
-            result.add(node.vertex);
-            node = node.prevNode;
+    /*
+     * Runs a group of mutations under one write lock acquisition; the graph's own methods
+     * re-enter the lock cheaply from inside the batch.
+     */
+    void writeBatch(@NotNull Runnable batch) {
+        writeLock.lock();
+        try {
+            batch.run();
+        } finally {
+            writeLock.unlock();
         }
-        return result;
     }
 
-    private class VertexNode {
-        private V vertex;
-        private VertexNode prevNode;
-
-        private VertexNode(V vertex, VertexNode prevNode) {
-            this.vertex = vertex;
-            this.prevNode = prevNode;
+    private @NotNull List<V> getPathUnsafe(@NotNull V fromVertex, @NotNull V toVertex) {
+        if (!isVertex(fromVertex) || !isVertex(toVertex)) {
+            return Collections.emptyList();
         }
+        return PathFinder.findPath(fromVertex, toVertex, map::adjacentVertices);
     }
 }
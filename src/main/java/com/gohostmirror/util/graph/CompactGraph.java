@@ -0,0 +1,203 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+/*
+ * Immutable dense-id view of a graph topology in compressed sparse row form: the neighbours
+ * of vertex i are targets[offsets[i] .. offsets[i + 1]), sorted ascending. Ids follow the
+ * iteration order of Graph.getVertices() at snapshot time unless a VertexOrder is given.
+ */
+public final class CompactGraph<V> {
+    private final boolean directed;
+    private final ObjectIndex<V> index;
+    private final int[] offsets;
+    private final int[] targets;
+    private volatile CompactGraph<V> transposed;
+
+    private CompactGraph(boolean directed, @NotNull ObjectIndex<V> index, int[] offsets, int[] targets) {
+        this.directed = directed;
+        this.index = index;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /*
+     * Snapshots the graph. Graphs backed by a single lock are read under one read lock
+     * acquisition, which is released before the snapshot is returned.
+     */
+    public static <V, E> @NotNull CompactGraph<V> of(@NotNull Graph<V, E> graph) {
+        return ReadableGraph.read(graph, map ->
+                build(graph.isDirectedGraph(), map.getVertices(), map::adjacentVertices));
+    }
+
+    public static <V, E> @NotNull CompactGraph<V> of(@NotNull Graph<V, E> graph, @NotNull VertexOrder order) {
+        return of(graph).reorder(order);
+    }
+
+    private static <V> @NotNull CompactGraph<V> build(boolean directed,
+                                                      @NotNull Collection<V> vertices,
+                                                      @NotNull Function<V, Collection<V>> adjacency) {
+        ObjectIndex<V> index = new ObjectIndex<>(vertices.size());
+        for (V vertex : vertices) {
+            index.add(vertex);
+        }
+
+        int n = index.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[Math.max(n, 16)];
+        int size = 0;
+        for (int id = 0; id < n; id++) {
+            for (V adjacent : adjacency.apply(index.get(id))) {
+                int target = index.indexOf(adjacent);
+                if (target < 0) {
+                    continue;
+                }
+                if (size == targets.length) {
+                    targets = Arrays.copyOf(targets, size * 2);
+                }
+                targets[size++] = target;
+            }
+            Arrays.sort(targets, offsets[id], size);
+            offsets[id + 1] = size;
+        }
+        return new CompactGraph<>(directed, index, offsets, Arrays.copyOf(targets, size));
+    }
+
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return directed;
+    }
+
+    @Contract(pure = true)
+    public int getVertexCount() {
+        return offsets.length - 1;
+    }
+
+    /*
+     * Number of adjacency entries; undirected edges are counted once per endpoint.
+     */
+    @Contract(pure = true)
+    public int getArcCount() {
+        return targets.length;
+    }
+
+    @Contract(pure = true)
+    public @NotNull V vertex(int id) {
+        return index.get(id);
+    }
+
+    @Contract(pure = true)
+    public int id(@NotNull V vertex) {
+        return index.indexOf(vertex);
+    }
+
+    @Contract(pure = true)
+    public int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    @Contract(pure = true)
+    public @NotNull int[] neighbours(int id) {
+        return Arrays.copyOfRange(targets, offsets[id], offsets[id + 1]);
+    }
+
+    /*
+     * Same vertex ids with every arc reversed. Undirected graphs are their own transpose.
+     */
+    public @NotNull CompactGraph<V> transpose() {
+        if (!directed) {
+            return this;
+        }
+        CompactGraph<V> result = transposed;
+        if (result == null) {
+            int n = getVertexCount();
+            int[] reverseOffsets = new int[n + 1];
+            for (int target : targets) {
+                reverseOffsets[target + 1]++;
+            }
+            for (int id = 0; id < n; id++) {
+                reverseOffsets[id + 1] += reverseOffsets[id];
+            }
+            int[] cursor = Arrays.copyOf(reverseOffsets, n);
+            int[] reverseTargets = new int[targets.length];
+            for (int source = 0; source < n; source++) {
+                for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+                    reverseTargets[cursor[targets[i]]++] = source;
+                }
+            }
+            result = new CompactGraph<>(true, index, reverseOffsets, reverseTargets);
+            result.transposed = this;
+            transposed = result;
+        }
+        return result;
+    }
+
+    /*
+     * Same topology with ids renumbered by `order`.
+     */
+    public @NotNull CompactGraph<V> reorder(@NotNull VertexOrder order) {
+        if (order == VertexOrder.INSERTION) {
+            return this;
+        }
+        int n = getVertexCount();
+        int[] oldIds = directed ? order.order(symmetricOffsets(), symmetricTargets()) : order.order(offsets, targets);
+        int[] newIds = new int[n];
+        ObjectIndex<V> newIndex = new ObjectIndex<>(n);
+        for (int id = 0; id < n; id++) {
+            newIds[oldIds[id]] = id;
+            newIndex.add(index.get(oldIds[id]));
+        }
+
+        int[] newOffsets = new int[n + 1];
+        int[] newTargets = new int[targets.length];
+        for (int id = 0; id < n; id++) {
+            int old = oldIds[id];
+            int start = newOffsets[id];
+            int end = start;
+            for (int i = offsets[old]; i < offsets[old + 1]; i++) {
+                newTargets[end++] = newIds[targets[i]];
+            }
+            Arrays.sort(newTargets, start, end);
+            newOffsets[id + 1] = end;
+        }
+        return new CompactGraph<>(directed, newIndex, newOffsets, newTargets);
+    }
+
+    // out- and in-arcs of a directed graph side by side
+    private @NotNull int[] symmetricOffsets() {
+        int[] reverseOffsets = transpose().offsets;
+        int[] result = new int[offsets.length];
+        for (int id = 0; id < result.length; id++) {
+            result[id] = offsets[id] + reverseOffsets[id];
+        }
+        return result;
+    }
+
+    private @NotNull int[] symmetricTargets() {
+        CompactGraph<V> reverse = transpose();
+        int[] result = new int[targets.length * 2];
+        int size = 0;
+        for (int id = 0; id < getVertexCount(); id++) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                result[size++] = targets[i];
+            }
+            for (int i = reverse.offsets[id]; i < reverse.offsets[id + 1]; i++) {
+                result[size++] = reverse.targets[i];
+            }
+        }
+        return result;
+    }
+
+    @NotNull int[] offsets() {
+        return offsets;
+    }
+
+    @NotNull int[] targets() {
+        return targets;
+    }
+}
@@ -0,0 +1,36 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Shared daemon thread that runs GraphMap compactions requested after removals.
+ */
+final class Compactor {
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "graph-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Compactor() {
+    }
+
+    /*
+     * Runs `compaction` in the background unless one guarded by the same flag is already queued.
+     */
+    static void schedule(@NotNull AtomicBoolean scheduled, @NotNull Runnable compaction) {
+        if (scheduled.compareAndSet(false, true)) {
+            EXECUTOR.execute(() -> {
+                try {
+                    compaction.run();
+                } finally {
+                    scheduled.set(false);
+                }
+            });
+        }
+    }
+}
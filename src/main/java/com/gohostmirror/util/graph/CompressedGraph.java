@@ -0,0 +1,497 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/*
+ * Immutable graph whose adjacency lists are compressed into one byte[] in the style of
+ * WebGraph: the sorted neighbour ids of vertex u are written as the zigzag-encoded difference
+ * between the first neighbour and u, then the gaps between consecutive neighbours minus one,
+ * each as a little-endian base-128 varint. Lists of graphs with locality take one or two
+ * bytes per arc; vertex ids follow Graph.getVertices() at build time.
+ *
+ * Edge objects are not stored per arc. Edge ids are ranks of arcs in (source, target) order,
+ * so the edge of an arc is found by counting. An undirected edge is kept in both endpoints'
+ * lists but numbered only by its arc from the lower id; the ids of arcs to lower neighbours
+ * are stored in a column of their own, which adds 4 bytes per undirected edge (plus 4 per
+ * vertex) to the compressed lists but keeps edge lookups from decoding a second list.
+ * incidentVertices() of an undirected edge returns its endpoints in id order.
+ */
+public final class CompressedGraph<V, E> implements Graph<V, E> {
+    private final boolean directed;
+    private final ObjectIndex<V> vertices;
+    private final ObjectIndex<E> edges;
+    private final byte[] data;
+    private final int[] dataOffsets;
+    private final int[] degrees;
+    // first edge id numbered by each vertex; in undirected graphs a vertex numbers only its arcs to ids >= its own
+    private final int[] edgeOffsets;
+    // undirected only: edge ids of the arcs of each vertex to lower ids, which lead its list
+    private final int[] lowerOffsets;
+    private final int[] lowerEdgeIds;
+
+    private CompressedGraph(boolean directed, @NotNull ObjectIndex<V> vertices, @NotNull ObjectIndex<E> edges,
+                            @NotNull byte[] data, @NotNull int[] dataOffsets, @NotNull int[] degrees,
+                            @NotNull int[] edgeOffsets, @NotNull int[] lowerOffsets, @NotNull int[] lowerEdgeIds) {
+        this.directed = directed;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.data = data;
+        this.dataOffsets = dataOffsets;
+        this.degrees = degrees;
+        this.edgeOffsets = edgeOffsets;
+        this.lowerOffsets = lowerOffsets;
+        this.lowerEdgeIds = lowerEdgeIds;
+    }
+
+    /*
+     * Compresses a snapshot of the graph, read under one read lock where the graph supports it.
+     * Graphs with parallel edges are rejected: an arc stores exactly one edge.
+     */
+    public static <V, E> @NotNull CompressedGraph<V, E> of(@NotNull Graph<V, E> graph) {
+        boolean directed = graph.isDirectedGraph();
+        return ReadableGraph.read(graph, map -> build(directed, map));
+    }
+
+    private static <V, E> @NotNull CompressedGraph<V, E> build(boolean directed, @NotNull GraphMap<V, E> map) {
+        if (map.allowsParallelEdges()) {
+            throw new IllegalArgumentException("CompressedGraph cannot hold parallel edges");
+        }
+        ObjectIndex<V> vertices = new ObjectIndex<>(map.getVertexCount());
+        for (V vertex : map.getVertices()) {
+            vertices.add(vertex);
+        }
+        int n = vertices.size();
+        ObjectIndex<E> edges = new ObjectIndex<>(map.getEdgeCount());
+        int[] dataOffsets = new int[n + 1];
+        int[] degrees = new int[n];
+        int[] edgeOffsets = new int[n + 1];
+        int[] lowerOffsets = new int[directed ? 0 : n + 1];
+        int[] lowerEdgeIds = new int[directed ? 0 : 16];
+        int lowerCount = 0;
+        byte[] data = new byte[Math.max(16, map.getEdgeCount() * 2)];
+        int size = 0;
+        int[] neighbours = new int[16];
+
+        for (int u = 0; u < n; u++) {
+            V vertex = vertices.get(u);
+            int degree = 0;
+            for (V adjacent : map.adjacentVertices(vertex)) {
+                int target = vertices.indexOf(adjacent);
+                if (target < 0) {
+                    continue;
+                }
+                if (degree == neighbours.length) {
+                    neighbours = Arrays.copyOf(neighbours, degree * 2);
+                }
+                neighbours[degree++] = target;
+            }
+            Arrays.sort(neighbours, 0, degree);
+
+            if (data.length - size < degree * 5 + 5) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + degree * 5 + 5));
+            }
+            for (int i = 0; i < degree; i++) {
+                int value = i == 0 ? zigzag(neighbours[0] - u) : neighbours[i] - neighbours[i - 1] - 1;
+                size = writeVarint(data, size, value);
+                E edge = map.getEdge(vertex, vertices.get(neighbours[i]));
+                if (directed || neighbours[i] >= u) {
+                    edges.add(edge);
+                } else {
+                    // numbered when the lower endpoint was written
+                    if (lowerCount == lowerEdgeIds.length) {
+                        lowerEdgeIds = Arrays.copyOf(lowerEdgeIds, lowerCount * 2);
+                    }
+                    lowerEdgeIds[lowerCount++] = edges.indexOf(edge);
+                }
+            }
+            degrees[u] = degree;
+            dataOffsets[u + 1] = size;
+            edgeOffsets[u + 1] = edges.size();
+            if (!directed) {
+                lowerOffsets[u + 1] = lowerCount;
+            }
+        }
+        return new CompressedGraph<>(directed, vertices, edges, Arrays.copyOf(data, size),
+                dataOffsets, degrees, edgeOffsets, lowerOffsets, Arrays.copyOf(lowerEdgeIds, lowerCount));
+    }
+
+    /*
+     * Size of the compressed adjacency lists alone.
+     */
+    @Contract(pure = true)
+    public int adjacencyBytes() {
+        return data.length;
+    }
+
+    /*
+     * Size of the compressed lists plus the per-vertex offset and degree arrays and the
+     * lower-arc edge ids.
+     */
+    @Contract(pure = true)
+    public long totalBytes() {
+        return data.length + 4L * (dataOffsets.length + degrees.length + edgeOffsets.length
+                + lowerOffsets.length + lowerEdgeIds.length);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return directed;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getVertexCount() {
+        return vertices.size();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getEdgeCount() {
+        return edges.size();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isVertex(@NotNull V vertex) {
+        return vertices.indexOf(vertex) >= 0;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isEdge(@NotNull E edge) {
+        return edges.indexOf(edge) >= 0;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<V> getVertices() {
+        return new IndexList<>(vertices);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> getEdges() {
+        return new IndexList<>(edges);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+        int u = vertices.indexOf(vertex);
+        if (u < 0) {
+            return Collections.emptyList();
+        }
+        int[] neighbours = neighbours(u);
+        List<E> result = new ArrayList<>(neighbours.length);
+        for (int i = 0; i < neighbours.length; i++) {
+            result.add(edges.get(edgeId(u, i)));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> incidentVertices(@NotNull E edge) {
+        int id = edges.indexOf(edge);
+        if (id < 0) {
+            return Collections.emptyList();
+        }
+        // the source is the last vertex whose first edge id is <= id
+        int low = 0;
+        int high = getVertexCount() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (edgeOffsets[mid] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int u = low;
+        int[] neighbours = neighbours(u);
+        int rank = id - edgeOffsets[u];
+        int target = directed ? neighbours[rank] : neighbours[lowerOffsets[u + 1] - lowerOffsets[u] + rank];
+        return List.of(vertices.get(u), vertices.get(target));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+        int u = vertices.indexOf(vertex1);
+        int w = vertices.indexOf(vertex2);
+        if (u < 0 || w < 0) {
+            return null;
+        }
+        int[] neighbours = neighbours(u);
+        int i = Arrays.binarySearch(neighbours, w);
+        return i < 0 ? null : edges.get(edgeId(u, i));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex) {
+        return findPath(fromVertex, toVertex, null, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                    @NotNull Predicate<? super V> vertexFilter,
+                                    @NotNull Predicate<? super E> edgeFilter,
+                                    int maxDepth) {
+        if (!vertexFilter.test(fromVertex) || !vertexFilter.test(toVertex)) {
+            return Collections.emptyList();
+        }
+        return findPath(fromVertex, toVertex, vertexFilter, edgeFilter, maxDepth);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit, boolean withEdges) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("maxHops must not be negative: " + maxHops);
+        }
+        int start = vertices.indexOf(vertex);
+        if (start < 0 || limit < 1) {
+            return Neighbourhood.empty();
+        }
+        // position of each reached id in `order`, kept sparse so small queries stay small
+        Map<Integer, Integer> positions = new HashMap<>();
+        int[] order = new int[Math.min(limit, 1024)];
+        int[] distances = new int[order.length];
+        int size = 0;
+        order[size++] = start;
+        positions.put(start, 0);
+        int[] buffer = new int[16];
+        boolean truncated = false;
+        int levelStart = 0;
+        for (int hop = 1; hop <= maxHops && levelStart < size && !truncated; hop++) {
+            int levelEnd = size;
+            for (int i = levelStart; i < levelEnd && !truncated; i++) {
+                int u = order[i];
+                int degree = degrees[u];
+                if (buffer.length < degree) {
+                    buffer = new int[Math.max(degree, buffer.length * 2)];
+                }
+                decode(u, buffer);
+                for (int k = 0; k < degree; k++) {
+                    int w = buffer[k];
+                    if (positions.containsKey(w)) {
+                        continue;
+                    }
+                    if (size == limit) {
+                        truncated = true;
+                        break;
+                    }
+                    if (size == order.length) {
+                        order = Arrays.copyOf(order, size * 2);
+                        distances = Arrays.copyOf(distances, size * 2);
+                    }
+                    positions.put(w, size);
+                    distances[size] = hop;
+                    order[size++] = w;
+                }
+            }
+            levelStart = levelEnd;
+        }
+
+        Object[] result = new Object[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = vertices.get(order[i]);
+        }
+        Object[] induced = new Object[0];
+        int edgeCount = 0;
+        if (withEdges) {
+            induced = new Object[Math.max(size, 16)];
+            for (int i = 0; i < size; i++) {
+                int u = order[i];
+                int degree = degrees[u];
+                if (buffer.length < degree) {
+                    buffer = new int[Math.max(degree, buffer.length * 2)];
+                }
+                decode(u, buffer);
+                for (int k = 0; k < degree; k++) {
+                    Integer j = positions.get(buffer[k]);
+                    if (j == null || (!directed && j < i)) {
+                        continue;
+                    }
+                    if (edgeCount == induced.length) {
+                        induced = Arrays.copyOf(induced, edgeCount * 2);
+                    }
+                    induced[edgeCount++] = edges.get(edgeId(u, k));
+                }
+            }
+        }
+        return new Neighbourhood<>(result, Arrays.copyOf(distances, size), size, induced, edgeCount, truncated);
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable");
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable");
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable");
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable");
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
+        int u = vertices.indexOf(vertex1);
+        int w = vertices.indexOf(vertex2);
+        return u >= 0 && w >= 0 && Arrays.binarySearch(neighbours(u), w) >= 0;
+    }
+
+    /*
+     * Decodes the sorted neighbour ids of u.
+     */
+    @Contract(pure = true)
+    @NotNull int[] neighbours(int u) {
+        int[] result = new int[degrees[u]];
+        decode(u, result);
+        return result;
+    }
+
+    private void decode(int u, @NotNull int[] target) {
+        int position = dataOffsets[u];
+        int previous = 0;
+        for (int i = 0, degree = degrees[u]; i < degree; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous = i == 0 ? u + ((value >>> 1) ^ -(value & 1)) : previous + value + 1;
+            target[i] = previous;
+        }
+    }
+
+    /*
+     * Edge id of the arc from u to the i-th entry of its list.
+     */
+    private int edgeId(int u, int i) {
+        if (directed) {
+            return edgeOffsets[u] + i;
+        }
+        // the lower neighbours are the first lowerOffsets[u + 1] - lowerOffsets[u] of the list
+        int lower = lowerOffsets[u + 1] - lowerOffsets[u];
+        return i < lower ? lowerEdgeIds[lowerOffsets[u] + i] : edgeOffsets[u] + i - lower;
+    }
+
+    private @NotNull List<V> findPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                      @Nullable Predicate<? super V> vertexFilter,
+                                      @Nullable Predicate<? super E> edgeFilter,
+                                      int maxDepth) {
+        int from = vertices.indexOf(fromVertex);
+        int to = vertices.indexOf(toVertex);
+        if (from < 0 || to < 0 || maxDepth < 1) {
+            return Collections.emptyList();
+        }
+        GraphEvents.PathSearch event = new GraphEvents.PathSearch();
+        event.begin();
+        int n = getVertexCount();
+        int[] parent = new int[n];
+        int[] depth = new int[n];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[n + 1];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        int[] buffer = new int[16];
+        // `from` is not marked, so a path from a vertex to itself has to close a cycle
+        while (head < tail) {
+            int u = queue[head++];
+            int level = depth[u];
+            if (level == maxDepth) {
+                continue;
+            }
+            int degree = degrees[u];
+            if (buffer.length < degree) {
+                buffer = new int[Math.max(degree, buffer.length * 2)];
+            }
+            decode(u, buffer);
+            for (int i = 0; i < degree; i++) {
+                int w = buffer[i];
+                if (parent[w] >= 0 || (w == from && w != to)) {
+                    continue;
+                }
+                if (edgeFilter != null && !edgeFilter.test(edges.get(edgeId(u, i)))) {
+                    continue;
+                }
+                if (w != to && vertexFilter != null && !vertexFilter.test(vertices.get(w))) {
+                    continue;
+                }
+                parent[w] = u;
+                depth[w] = level + 1;
+                if (w == to) {
+                    return GraphEvents.pathSearched(event, fromVertex, toVertex, tail, trace(from, to, parent));
+                }
+                queue[tail++] = w;
+            }
+        }
+        return GraphEvents.pathSearched(event, fromVertex, toVertex, tail, Collections.emptyList());
+    }
+
+    private @NotNull List<V> trace(int from, int to, @NotNull int[] parent) {
+        ArrayDeque<V> path = new ArrayDeque<>();
+        int vertex = to;
+        do {
+            path.addFirst(vertices.get(vertex));
+            vertex = parent[vertex];
+        } while (vertex != from);
+        path.addFirst(vertices.get(from));
+        return new ArrayList<>(path);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int writeVarint(@NotNull byte[] data, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+
+    private static class IndexList<T> extends AbstractList<T> implements RandomAccess {
+        private final ObjectIndex<T> index;
+
+        private IndexList(ObjectIndex<T> index) {
+            this.index = index;
+        }
+
+        @Override
+        public T get(int i) {
+            Objects.checkIndex(i, index.size());
+            return index.get(i);
+        }
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+    }
+}
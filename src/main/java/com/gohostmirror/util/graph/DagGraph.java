@@ -0,0 +1,26 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/*
+ * Directed graph that stays acyclic: addEdge() returns false, leaving the graph unchanged,
+ * when the new edge would close a cycle (self-loops included).
+ */
+public interface DagGraph<V, E> extends Graph<V, E> {
+    /*
+     * Live view of a topological order of the vertices: every edge goes from a lower to a
+     * higher index. get() and size() take the read lock and are O(1); the order of vertices
+     * not related by a path may change when edges are added.
+     */
+    @Contract(pure = true)
+    @NotNull List<V> topologicalOrder();
+
+    /*
+     * Position of the vertex in topologicalOrder(), or -1 if it is not in the graph.
+     */
+    @Contract(pure = true)
+    int topologicalIndex(@NotNull V vertex);
+}
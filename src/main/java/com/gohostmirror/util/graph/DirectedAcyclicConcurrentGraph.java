@@ -0,0 +1,217 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/*
+ * Maintains a topological order incrementally with the Pearce-Kelly algorithm. An edge x -> y
+ * that already agrees with the order costs nothing extra. Otherwise only the vertices
+ * between y and x in the order are searched: forward from y for those reachable from it,
+ * where reaching x means a cycle, and backward from x. The two sets then swap the positions
+ * they occupy, with the backward set first. Predecessor sets are kept here because GraphMap
+ * only indexes outgoing edges.
+ *
+ * Removing an edge keeps the order valid. Removing a vertex closes its gap by shifting the
+ * vertices after it, which is O(n).
+ */
+class DirectedAcyclicConcurrentGraph<V, E> extends DirectedConcurrentGraph<V, E> implements DagGraph<V, E> {
+    private final Map<V, Integer> positions = new HashMap<>();
+    private final List<V> order = new ArrayList<>();
+    private final Map<V, Set<V>> predecessors = new HashMap<>();
+    private final List<V> orderView = new OrderView();
+
+    DirectedAcyclicConcurrentGraph() {
+    }
+
+    DirectedAcyclicConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory) {
+        super(factory);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> topologicalOrder() {
+        return orderView;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int topologicalIndex(@NotNull V vertex) {
+        readLock.lock();
+        try {
+            return positions.getOrDefault(vertex, -1);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        writeLock.lock();
+        try {
+            return addVertexUnsafe(vertex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        writeLock.lock();
+        try {
+            if (vertex1.equals(vertex2) || map.isEdge(edge) || map.isDirectConnection(vertex1, vertex2)) {
+                return false;
+            }
+            // a vertex added here has no edges yet, so the cycle check below cannot fail for it
+            addVertexUnsafe(vertex1);
+            addVertexUnsafe(vertex2);
+            if (positions.get(vertex1) > positions.get(vertex2) && !reorder(vertex1, vertex2)) {
+                return false;
+            }
+            if (!map.addDirectEdge(edge, vertex1, vertex2)) {
+                return false;
+            }
+            predecessors.get(vertex2).add(vertex1);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        writeLock.lock();
+        try {
+            if (!map.isVertex(vertex)) {
+                return false;
+            }
+            List<V> successors = List.copyOf(map.adjacentVertices(vertex));
+            super.removeVertex(vertex);
+            for (V successor : successors) {
+                predecessors.get(successor).remove(vertex);
+            }
+            predecessors.remove(vertex);
+            int position = positions.remove(vertex);
+            order.remove(position);
+            for (int i = position; i < order.size(); i++) {
+                positions.put(order.get(i), i);
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        writeLock.lock();
+        try {
+            List<V> ends = map.incidentVertices(edge);
+            if (!super.removeEdge(edge)) {
+                return false;
+            }
+            predecessors.get(ends.get(1)).remove(ends.get(0));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean addVertexUnsafe(@NotNull V vertex) {
+        if (!map.addVertex(vertex)) {
+            return false;
+        }
+        positions.put(vertex, order.size());
+        order.add(vertex);
+        predecessors.put(vertex, new HashSet<>());
+        return true;
+    }
+
+    /*
+     * Called for a new edge x -> y with x after y. Returns false if y reaches x.
+     */
+    private boolean reorder(@NotNull V x, @NotNull V y) {
+        int lower = positions.get(y);
+        int upper = positions.get(x);
+
+        List<V> forward = new ArrayList<>();
+        Set<V> visited = new HashSet<>();
+        Deque<V> stack = new ArrayDeque<>();
+        stack.push(y);
+        visited.add(y);
+        while (!stack.isEmpty()) {
+            V vertex = stack.pop();
+            forward.add(vertex);
+            for (V successor : map.adjacentVertices(vertex)) {
+                if (successor.equals(x)) {
+                    return false;
+                }
+                if (positions.get(successor) < upper && visited.add(successor)) {
+                    stack.push(successor);
+                }
+            }
+        }
+
+        List<V> backward = new ArrayList<>();
+        stack.push(x);
+        visited.add(x);
+        while (!stack.isEmpty()) {
+            V vertex = stack.pop();
+            backward.add(vertex);
+            for (V predecessor : predecessors.get(vertex)) {
+                if (positions.get(predecessor) > lower && visited.add(predecessor)) {
+                    stack.push(predecessor);
+                }
+            }
+        }
+
+        Comparator<V> byPosition = Comparator.comparingInt(positions::get);
+        backward.sort(byPosition);
+        forward.sort(byPosition);
+        int[] slots = new int[backward.size() + forward.size()];
+        int i = 0;
+        for (V vertex : backward) {
+            slots[i++] = positions.get(vertex);
+        }
+        for (V vertex : forward) {
+            slots[i++] = positions.get(vertex);
+        }
+        Arrays.sort(slots);
+        i = 0;
+        for (V vertex : backward) {
+            place(vertex, slots[i++]);
+        }
+        for (V vertex : forward) {
+            place(vertex, slots[i++]);
+        }
+        return true;
+    }
+
+    private void place(@NotNull V vertex, int position) {
+        positions.put(vertex, position);
+        order.set(position, vertex);
+    }
+
+    private class OrderView extends AbstractList<V> implements RandomAccess {
+        @Override
+        public V get(int index) {
+            readLock.lock();
+            try {
+                return order.get(index);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            readLock.lock();
+            try {
+                return order.size();
+            } finally {
+                readLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+class DirectedConcurrentGraph<V, E> extends AbstractConcurrentGraph<V, E> {
+    DirectedConcurrentGraph() {
+    }
+
+    DirectedConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory) {
+        super(factory);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return true;
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        writeLock.lock();
+        try {
+            return map.addDirectEdge(edge, vertex1, vertex2);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
+        readLock.lock();
+        try {
+            return map.isDirectConnection(vertex1, vertex2);
+        } finally {
+            readLock.unlock();
+        }
+    }
+}
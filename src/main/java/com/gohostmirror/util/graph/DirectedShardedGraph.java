@@ -0,0 +1,32 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+class DirectedShardedGraph<V, E> extends ShardedConcurrentGraph<V, E> {
+    DirectedShardedGraph(int shardCount) {
+        super(shardCount);
+    }
+
+    DirectedShardedGraph(@NotNull AbstractGraphFactory<V, E> factory, int shardCount) {
+        super(factory, shardCount);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return true;
+    }
+
+    @Override
+    boolean isConnectionUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2,
+                               @NotNull V vertex1, @NotNull V vertex2) {
+        return shard1.map.isDirectConnection(vertex1, vertex2);
+    }
+
+    @Override
+    void addEdgeUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2,
+                       @NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        shard1.map.addDirectEdge(edge, vertex1, vertex2);
+    }
+}
@@ -0,0 +1,323 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Approximate hop distances from BFS distances to and from k landmark vertices, picked by
+ * degree. Distances are stored per vertex, k consecutive ints each, so a query reads two short
+ * runs of memory. By the triangle inequality, for every landmark L
+ *
+ *   d(u, L) + d(L, v) >= d(u, v) >= max(d(L, v) - d(L, u), d(u, L) - d(v, L))
+ *
+ * and the bounds are exact whenever u or v is a landmark.
+ *
+ * Distances refer to a CompactGraph snapshot. edgeAdded() repairs them in place for a new
+ * edge between snapshot vertices: distances only shrink, and only the vertices whose
+ * distance shrinks are visited. Vertices added after the snapshot, and removals of any kind,
+ * need a refresh(), which rebuilds everything (in the background with refreshAsync()).
+ * Queries do not lock; while edgeAdded() runs they may see a mix of old and repaired
+ * distances.
+ */
+public final class DistanceOracle<V> {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Graph<V, ?> graph;
+    private final int landmarkCount;
+    private final ForkJoinPool pool;
+    private final Object refreshLock = new Object();
+    private volatile State<V> state;
+    // edges reported while a refresh is reading the graph, replayed onto its result
+    private List<V> journal;
+
+    private DistanceOracle(@NotNull Graph<V, ?> graph, int landmarkCount, @NotNull ForkJoinPool pool) {
+        this.graph = graph;
+        this.landmarkCount = landmarkCount;
+        this.pool = pool;
+    }
+
+    public static <V> @NotNull DistanceOracle<V> build(@NotNull Graph<V, ?> graph, int landmarks) {
+        return build(graph, landmarks, ForkJoinPool.commonPool());
+    }
+
+    public static <V> @NotNull DistanceOracle<V> build(@NotNull Graph<V, ?> graph, int landmarks,
+                                                       @NotNull ForkJoinPool pool) {
+        if (landmarks < 1) {
+            throw new IllegalArgumentException("landmarks must be positive: " + landmarks);
+        }
+        DistanceOracle<V> oracle = new DistanceOracle<>(graph, landmarks, pool);
+        oracle.refresh();
+        return oracle;
+    }
+
+    /*
+     * Smallest known path length from `from` to `to`, or UNREACHABLE if no landmark links them
+     * (which includes vertices the oracle has not seen yet).
+     */
+    @Contract(pure = true)
+    public int upperBound(@NotNull V from, @NotNull V to) {
+        State<V> current = state;
+        int u = current.graph.id(from);
+        int v = current.graph.id(to);
+        if (u < 0 || v < 0) {
+            return UNREACHABLE;
+        }
+        if (u == v) {
+            return 0;
+        }
+        int k = current.landmarks.length;
+        int best = UNREACHABLE;
+        for (int i = 0; i < k; i++) {
+            int toLandmark = current.backward[u * k + i];
+            int fromLandmark = current.forward[v * k + i];
+            if (toLandmark != UNREACHABLE && fromLandmark != UNREACHABLE) {
+                best = Math.min(best, toLandmark + fromLandmark);
+            }
+        }
+        return best;
+    }
+
+    /*
+     * A value the path length from `from` to `to` cannot be below; UNREACHABLE if some landmark
+     * proves there is no path, 0 if nothing is known.
+     */
+    @Contract(pure = true)
+    public int lowerBound(@NotNull V from, @NotNull V to) {
+        State<V> current = state;
+        int u = current.graph.id(from);
+        int v = current.graph.id(to);
+        if (u < 0 || v < 0 || u == v) {
+            return 0;
+        }
+        int k = current.landmarks.length;
+        int best = 0;
+        for (int i = 0; i < k; i++) {
+            int fromLandmarkU = current.forward[u * k + i];
+            int fromLandmarkV = current.forward[v * k + i];
+            if (fromLandmarkU != UNREACHABLE) {
+                if (fromLandmarkV == UNREACHABLE) {
+                    return UNREACHABLE;
+                }
+                best = Math.max(best, fromLandmarkV - fromLandmarkU);
+            }
+            int toLandmarkU = current.backward[u * k + i];
+            int toLandmarkV = current.backward[v * k + i];
+            if (toLandmarkV != UNREACHABLE) {
+                if (toLandmarkU == UNREACHABLE) {
+                    return UNREACHABLE;
+                }
+                best = Math.max(best, toLandmarkU - toLandmarkV);
+            }
+        }
+        return best;
+    }
+
+    @Contract(pure = true)
+    public @NotNull List<V> landmarks() {
+        State<V> current = state;
+        List<V> result = new ArrayList<>(current.landmarks.length);
+        for (int landmark : current.landmarks) {
+            result.add(current.graph.vertex(landmark));
+        }
+        return result;
+    }
+
+    /*
+     * Repairs the distances after `graph.addEdge(edge, from, to)` succeeded.
+     */
+    public synchronized void edgeAdded(@NotNull V from, @NotNull V to) {
+        if (journal != null) {
+            journal.add(from);
+            journal.add(to);
+        }
+        state.addEdge(from, to);
+    }
+
+    /*
+     * Rebuilds the snapshot, landmarks and distances; the old ones answer queries meanwhile.
+     */
+    public void refresh() {
+        synchronized (refreshLock) {
+            synchronized (this) {
+                journal = new ArrayList<>();
+            }
+            State<V> next = State.build(CompactGraph.of(graph), landmarkCount, pool);
+            synchronized (this) {
+                for (int i = 0; i < journal.size(); i += 2) {
+                    next.addEdge(journal.get(i), journal.get(i + 1));
+                }
+                journal = null;
+                state = next;
+            }
+        }
+    }
+
+    public @NotNull CompletableFuture<Void> refreshAsync() {
+        return CompletableFuture.runAsync(this::refresh, pool);
+    }
+
+    private static final class State<V> {
+        private final CompactGraph<V> graph;
+        private final int[] landmarks;
+        // forward[v * k + i] = d(landmark i, v), backward[v * k + i] = d(v, landmark i)
+        private final int[] forward;
+        private final int[] backward;
+        // arcs added after the snapshot, by source id; undirected edges are added both ways
+        private final Map<Integer, int[]> addedArcs = new HashMap<>();
+        private final Map<Integer, int[]> addedReverseArcs;
+
+        private State(@NotNull CompactGraph<V> graph, @NotNull int[] landmarks,
+                      @NotNull int[] forward, @NotNull int[] backward) {
+            this.graph = graph;
+            this.landmarks = landmarks;
+            this.forward = forward;
+            this.backward = backward;
+            this.addedReverseArcs = graph.isDirectedGraph() ? new HashMap<>() : addedArcs;
+        }
+
+        static <V> @NotNull State<V> build(@NotNull CompactGraph<V> graph, int landmarkCount, @NotNull ForkJoinPool pool) {
+            int n = graph.getVertexCount();
+            CompactGraph<V> transposed = graph.transpose();
+            int[] landmarks = selectLandmarks(graph, transposed, Math.min(landmarkCount, n));
+            int k = landmarks.length;
+            boolean directed = graph.isDirectedGraph();
+            // every BFS fills its own array, so parallel searches never write to shared cache lines
+            int[][] forwardRows = new int[k][];
+            int[][] backwardRows = directed ? new int[k][] : forwardRows;
+            ParallelRange.forEach(pool, k, 1, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    forwardRows[i] = bfs(graph, landmarks[i]);
+                    if (directed) {
+                        backwardRows[i] = bfs(transposed, landmarks[i]);
+                    }
+                }
+            });
+            int[] forward = interleave(pool, forwardRows, n);
+            int[] backward = directed ? interleave(pool, backwardRows, n) : forward;
+            return new State<>(graph, landmarks, forward, backward);
+        }
+
+        void addEdge(@NotNull V from, @NotNull V to) {
+            int u = graph.id(from);
+            int v = graph.id(to);
+            if (u < 0 || v < 0) {
+                return;
+            }
+            addedArcs.put(u, append(addedArcs.get(u), v));
+            if (addedReverseArcs != addedArcs || u != v) {
+                addedReverseArcs.put(v, append(addedReverseArcs.get(v), u));
+            }
+            CompactGraph<V> transposed = graph.transpose();
+            for (int i = 0; i < landmarks.length; i++) {
+                relax(graph, addedArcs, forward, i, u, v);
+                relax(transposed, addedReverseArcs, backward, i, v, u);
+            }
+        }
+
+        /*
+         * Propagates a shorter distance through v after the arc u -> v appeared.
+         */
+        private void relax(@NotNull CompactGraph<V> graph, @NotNull Map<Integer, int[]> added,
+                           @NotNull int[] distances, int i, int u, int v) {
+            int k = landmarks.length;
+            int[] offsets = graph.offsets();
+            int[] targets = graph.targets();
+            int base = distances[u * k + i];
+            if (base == UNREACHABLE || base + 1 >= distances[v * k + i]) {
+                return;
+            }
+            distances[v * k + i] = base + 1;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(v);
+            while (!queue.isEmpty()) {
+                int vertex = queue.poll();
+                int next = distances[vertex * k + i] + 1;
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+                    if (next < distances[targets[j] * k + i]) {
+                        distances[targets[j] * k + i] = next;
+                        queue.add(targets[j]);
+                    }
+                }
+                int[] extra = added.get(vertex);
+                if (extra != null) {
+                    for (int target : extra) {
+                        if (next < distances[target * k + i]) {
+                            distances[target * k + i] = next;
+                            queue.add(target);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static @NotNull int[] selectLandmarks(@NotNull CompactGraph<?> graph, @NotNull CompactGraph<?> transposed, int k) {
+            int n = graph.getVertexCount();
+            Integer[] ids = new Integer[n];
+            for (int id = 0; id < n; id++) {
+                ids[id] = id;
+            }
+            int directedFactor = graph.isDirectedGraph() ? 1 : 0;
+            Arrays.sort(ids, Comparator.comparingInt((Integer id) ->
+                    -(graph.degree(id) + directedFactor * transposed.degree(id))).thenComparingInt(id -> id));
+            int[] result = new int[k];
+            for (int i = 0; i < k; i++) {
+                result[i] = ids[i];
+            }
+            return result;
+        }
+
+        private static @NotNull int[] bfs(@NotNull CompactGraph<?> graph, int source) {
+            int[] offsets = graph.offsets();
+            int[] targets = graph.targets();
+            int[] distances = new int[graph.getVertexCount()];
+            Arrays.fill(distances, UNREACHABLE);
+            int[] queue = new int[graph.getVertexCount()];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            distances[source] = 0;
+            while (head < tail) {
+                int vertex = queue[head++];
+                int next = distances[vertex] + 1;
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+                    int target = targets[j];
+                    if (distances[target] == UNREACHABLE) {
+                        distances[target] = next;
+                        queue[tail++] = target;
+                    }
+                }
+            }
+            return distances;
+        }
+
+        /*
+         * Lays rows[i][v] out at v * k + i, so a query reads all landmarks of a vertex at once.
+         * Vertex ranges are split across the pool, each thread writing a contiguous block.
+         */
+        private static @NotNull int[] interleave(@NotNull ForkJoinPool pool, @NotNull int[][] rows, int n) {
+            int k = rows.length;
+            int[] result = new int[n * k];
+            ParallelRange.forEach(pool, n, ParallelRange.grain(pool, n, 4096), (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    for (int i = 0; i < k; i++) {
+                        result[v * k + i] = rows[i][v];
+                    }
+                }
+            });
+            return result;
+        }
+
+        private static @NotNull int[] append(int[] array, int value) {
+            if (array == null) {
+                return new int[]{value};
+            }
+            int[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = value;
+            return result;
+        }
+    }
+}
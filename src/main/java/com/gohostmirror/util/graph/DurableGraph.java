@@ -0,0 +1,391 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Graph decorator that appends every successful addVertex/addEdge to a write-ahead log in
+ * `directory` and periodically writes a checkpoint of the whole graph. open() restores the
+ * graph from the latest checkpoint plus the log segments written after it.
+ *
+ * Mutations must go through this object; changes made directly on the wrapped graph are not
+ * logged. If a log write fails the mutation has already been applied in memory and an
+ * UncheckedIOException is thrown. A failed background checkpoint is retried at the next
+ * threshold crossing and reported by the next sync() or close().
+ */
+public final class DurableGraph<V, E> extends ForwardingGraph<V, E> implements Closeable {
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+    public static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+    private static final int CHECKPOINT_MAGIC = 0x47434B50;
+
+    private final Path directory;
+    private final GraphCodec<V> vertexCodec;
+    private final GraphCodec<E> edgeCodec;
+    private final WriteAheadLog log;
+    private final long checkpointBytes;
+    private final Object mutex = new Object();
+    private final Object checkpointLock = new Object();
+    private final AtomicBoolean checkpointScheduled = new AtomicBoolean();
+    private final AtomicReference<IOException> checkpointFailure = new AtomicReference<>();
+    private final ScheduledExecutorService background;
+
+    private DurableGraph(@NotNull Path directory, @NotNull Graph<V, E> graph,
+                         @NotNull GraphCodec<V> vertexCodec, @NotNull GraphCodec<E> edgeCodec,
+                         @NotNull WriteAheadLog log, @NotNull FsyncPolicy policy,
+                         long syncIntervalMillis, long checkpointBytes) {
+        super(graph);
+        this.directory = directory;
+        this.vertexCodec = vertexCodec;
+        this.edgeCodec = edgeCodec;
+        this.log = log;
+        this.checkpointBytes = checkpointBytes;
+
+        if (policy == FsyncPolicy.INTERVAL || checkpointBytes > 0) {
+            background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "durable-graph-" + directory.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            background = null;
+        }
+        if (policy == FsyncPolicy.INTERVAL) {
+            background.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static <V, E> @NotNull DurableGraph<V, E> open(@NotNull Path directory, @NotNull Graph<V, E> graph,
+                                                          @NotNull GraphCodec<V> vertexCodec,
+                                                          @NotNull GraphCodec<E> edgeCodec) throws IOException {
+        return open(directory, graph, vertexCodec, edgeCodec, FsyncPolicy.ALWAYS,
+                DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /*
+     * `graph` must be empty; it is filled from the directory before being returned wrapped.
+     * A checkpoint is written in the background whenever the current log segment grows past
+     * `checkpointBytes` (0 disables automatic checkpoints).
+     */
+    public static <V, E> @NotNull DurableGraph<V, E> open(@NotNull Path directory, @NotNull Graph<V, E> graph,
+                                                          @NotNull GraphCodec<V> vertexCodec,
+                                                          @NotNull GraphCodec<E> edgeCodec,
+                                                          @NotNull FsyncPolicy policy,
+                                                          long syncIntervalMillis,
+                                                          long checkpointBytes) throws IOException {
+        Files.createDirectories(directory);
+        GraphEvents.BulkLoad event = new GraphEvents.BulkLoad();
+        event.begin();
+
+        long checkpoint = latestCheckpoint(directory);
+        if (checkpoint >= 0) {
+            loadCheckpoint(checkpointPath(directory, checkpoint), graph, vertexCodec, edgeCodec);
+        }
+        long lastSegment = Math.max(checkpoint, 0);
+        List<Long> segments = WriteAheadLog.segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            long segment = segments.get(i);
+            if (segment >= checkpoint) {
+                WriteAheadLog.replay(directory, segment, i == segments.size() - 1,
+                        (type, in) -> apply(graph, type, in, vertexCodec, edgeCodec));
+            }
+            lastSegment = Math.max(lastSegment, segment);
+        }
+        GraphEvents.bulkLoaded(event, graph, "recovery");
+
+        WriteAheadLog log = new WriteAheadLog(directory, lastSegment + 1, policy);
+        return new DurableGraph<>(directory, graph, vertexCodec, edgeCodec, log, policy,
+                syncIntervalMillis, checkpointBytes);
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        byte[] record = encode(out -> vertexCodec.write(out, vertex));
+        long sequence;
+        synchronized (mutex) {
+            if (!delegate.addVertex(vertex)) {
+                return false;
+            }
+            sequence = log.append(WriteAheadLog.VERTEX, record);
+        }
+        commit(sequence);
+        return true;
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        byte[] record = encode(out -> {
+            edgeCodec.write(out, edge);
+            vertexCodec.write(out, vertex1);
+            vertexCodec.write(out, vertex2);
+        });
+        long sequence;
+        synchronized (mutex) {
+            if (!delegate.addEdge(edge, vertex1, vertex2)) {
+                return false;
+            }
+            sequence = log.append(WriteAheadLog.EDGE, record);
+        }
+        commit(sequence);
+        return true;
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        byte[] record = encode(out -> vertexCodec.write(out, vertex));
+        long sequence;
+        synchronized (mutex) {
+            if (!delegate.removeVertex(vertex)) {
+                return false;
+            }
+            sequence = log.append(WriteAheadLog.REMOVE_VERTEX, record);
+        }
+        commit(sequence);
+        return true;
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        byte[] record = encode(out -> edgeCodec.write(out, edge));
+        long sequence;
+        synchronized (mutex) {
+            if (!delegate.removeEdge(edge)) {
+                return false;
+            }
+            sequence = log.append(WriteAheadLog.REMOVE_EDGE, record);
+        }
+        commit(sequence);
+        return true;
+    }
+
+    /*
+     * Writes a checkpoint of the current graph and deletes the log segments it covers.
+     * Writers are only blocked while the graph contents are copied, not while they are written.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long segment;
+            List<Object[]> edges;
+            List<V> vertices;
+            synchronized (mutex) {
+                segment = log.roll();
+                vertices = new ArrayList<>();
+                edges = new ArrayList<>();
+                ReadableGraph.read(delegate, map -> {
+                    vertices.addAll(map.getVertices());
+                    for (E edge : map.getEdges()) {
+                        List<V> ends = map.incidentVertices(edge);
+                        edges.add(new Object[]{edge, ends.get(0), ends.get(1)});
+                    }
+                    return null;
+                });
+            }
+
+            Path path = checkpointPath(directory, segment);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            writeCheckpoint(temp, vertices, edges);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            // the rename must reach the disk before anything it replaces is deleted
+            WriteAheadLog.forceDirectory(directory);
+
+            for (long existing : checkpoints(directory)) {
+                if (existing < segment) {
+                    Files.deleteIfExists(checkpointPath(directory, existing));
+                }
+            }
+            log.deleteSegmentsBefore(segment);
+            checkpointFailure.set(null);
+        }
+    }
+
+    /*
+     * Forces every logged mutation to disk regardless of the fsync policy, then reports a
+     * background checkpoint that failed since the last call.
+     */
+    public void sync() throws IOException {
+        log.sync();
+        reportCheckpointFailure();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (background != null) {
+            background.shutdown();
+            try {
+                background.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.close();
+        reportCheckpointFailure();
+    }
+
+    private void commit(long sequence) {
+        try {
+            log.commit(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (checkpointBytes > 0 && log.segmentBytes() > checkpointBytes && checkpointScheduled.compareAndSet(false, true)) {
+            background.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    // the log still holds everything; the next threshold crossing retries
+                    checkpointFailure.set(e);
+                } finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void reportCheckpointFailure() throws IOException {
+        IOException failure = checkpointFailure.getAndSet(null);
+        if (failure != null) {
+            throw new IOException("Background checkpoint failed", failure);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            log.sync();
+        } catch (IOException ignore) {
+            // the log is now failed; the next mutation, sync() or close() reports it
+        }
+    }
+
+    private interface Encoder {
+        void write(@NotNull DataOutput out) throws IOException;
+    }
+
+    private static @NotNull byte[] encode(@NotNull Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try {
+            encoder.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <V, E> void apply(@NotNull Graph<V, E> graph, byte type, @NotNull DataInput in,
+                                     @NotNull GraphCodec<V> vertexCodec, @NotNull GraphCodec<E> edgeCodec) throws IOException {
+        switch (type) {
+            case WriteAheadLog.VERTEX:
+                graph.addVertex(vertexCodec.read(in));
+                break;
+            case WriteAheadLog.EDGE:
+                E edge = edgeCodec.read(in);
+                V vertex1 = vertexCodec.read(in);
+                V vertex2 = vertexCodec.read(in);
+                graph.addEdge(edge, vertex1, vertex2);
+                break;
+            case WriteAheadLog.REMOVE_VERTEX:
+                graph.removeVertex(vertexCodec.read(in));
+                break;
+            case WriteAheadLog.REMOVE_EDGE:
+                graph.removeEdge(edgeCodec.read(in));
+                break;
+            default:
+                throw new IOException("Unknown log record type " + type);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeCheckpoint(@NotNull Path path, @NotNull List<V> vertices, @NotNull List<Object[]> edges) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(vertices.size());
+            for (V vertex : vertices) {
+                vertexCodec.write(out, vertex);
+            }
+            out.writeInt(edges.size());
+            for (Object[] edge : edges) {
+                edgeCodec.write(out, (E) edge[0]);
+                vertexCodec.write(out, (V) edge[1]);
+                vertexCodec.write(out, (V) edge[2]);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /*
+     * The checksum is verified over the whole file before anything is decoded, so a corrupt
+     * checkpoint leaves `graph` untouched.
+     */
+    private static <V, E> void loadCheckpoint(@NotNull Path path, @NotNull Graph<V, E> graph,
+                                              @NotNull GraphCodec<V> vertexCodec,
+                                              @NotNull GraphCodec<E> edgeCodec) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        int bodyLength = bytes.length - Long.BYTES;
+        if (bodyLength < Integer.BYTES) {
+            throw new IOException("Corrupt graph checkpoint: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bodyLength);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(bodyLength);
+        if (in.readLong() != crc.getValue()) {
+            throw new IOException("Corrupt graph checkpoint: " + path);
+        }
+
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bodyLength));
+        if (in.readInt() != CHECKPOINT_MAGIC) {
+            throw new IOException("Not a graph checkpoint: " + path);
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            graph.addVertex(vertexCodec.read(in));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            E edge = edgeCodec.read(in);
+            V vertex1 = vertexCodec.read(in);
+            V vertex2 = vertexCodec.read(in);
+            graph.addEdge(edge, vertex1, vertex2);
+        }
+    }
+
+    private static long latestCheckpoint(@NotNull Path directory) throws IOException {
+        List<Long> checkpoints = checkpoints(directory);
+        return checkpoints.isEmpty() ? -1 : checkpoints.get(checkpoints.size() - 1);
+    }
+
+    private static @NotNull List<Long> checkpoints(@NotNull Path directory) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                result.add(Long.parseLong(name.substring(CHECKPOINT_PREFIX.length(), name.length() - CHECKPOINT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static @NotNull Path checkpointPath(@NotNull Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", CHECKPOINT_PREFIX, segment, CHECKPOINT_SUFFIX));
+    }
+}
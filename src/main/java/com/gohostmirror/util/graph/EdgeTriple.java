@@ -0,0 +1,58 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/*
+ * The arguments of one Graph.addEdge call, for bulk construction.
+ */
+public final class EdgeTriple<V, E> {
+    private final E edge;
+    private final V vertex1;
+    private final V vertex2;
+
+    private EdgeTriple(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        this.edge = Objects.requireNonNull(edge);
+        this.vertex1 = Objects.requireNonNull(vertex1);
+        this.vertex2 = Objects.requireNonNull(vertex2);
+    }
+
+    public static <V, E> @NotNull EdgeTriple<V, E> of(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        return new EdgeTriple<>(edge, vertex1, vertex2);
+    }
+
+    @Contract(pure = true)
+    public @NotNull E edge() {
+        return edge;
+    }
+
+    @Contract(pure = true)
+    public @NotNull V vertex1() {
+        return vertex1;
+    }
+
+    @Contract(pure = true)
+    public @NotNull V vertex2() {
+        return vertex2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EdgeTriple<?, ?> that = (EdgeTriple<?, ?>) o;
+        return edge.equals(that.edge) && vertex1.equals(that.vertex1) && vertex2.equals(that.vertex2);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(edge, vertex1, vertex2);
+    }
+
+    @Override
+    public String toString() {
+        return "EdgeTriple{" + edge + ": " + vertex1 + " -> " + vertex2 + "}";
+    }
+}
@@ -0,0 +1,139 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+ * Base class for decorators that observe or log mutations of another graph.
+ */
+abstract class ForwardingGraph<V, E> implements Graph<V, E>, ReadableGraph<V, E> {
+    protected final Graph<V, E> delegate;
+
+    ForwardingGraph(@NotNull Graph<V, E> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return delegate.isDirectedGraph();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getVertexCount() {
+        return delegate.getVertexCount();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getEdgeCount() {
+        return delegate.getEdgeCount();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isVertex(@NotNull V vertex) {
+        return delegate.isVertex(vertex);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isEdge(@NotNull E edge) {
+        return delegate.isEdge(edge);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<V> getVertices() {
+        return delegate.getVertices();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> getEdges() {
+        return delegate.getEdges();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+        return delegate.incidentEdges(vertex);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> incidentVertices(@NotNull E edge) {
+        return delegate.incidentVertices(edge);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+        return delegate.getEdge(vertex1, vertex2);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> connectingEdges(@NotNull V vertex1, @NotNull V vertex2) {
+        return delegate.connectingEdges(vertex1, vertex2);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex) {
+        return delegate.getPath(fromVertex, toVertex);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                    @NotNull Predicate<? super V> vertexFilter,
+                                    @NotNull Predicate<? super E> edgeFilter,
+                                    int maxDepth) {
+        return delegate.getPath(fromVertex, toVertex, vertexFilter, edgeFilter, maxDepth);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit, boolean withEdges) {
+        return delegate.neighbourhood(vertex, maxHops, limit, withEdges);
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        return delegate.addVertex(vertex);
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        return delegate.addEdge(edge, vertex1, vertex2);
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        return delegate.removeVertex(vertex);
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        return delegate.removeEdge(edge);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
+        return delegate.isConnection(vertex1, vertex2);
+    }
+
+    @Override
+    public <R> R readMap(@NotNull Function<? super GraphMap<V, E>, ? extends R> reader) {
+        return ReadableGraph.read(delegate, reader);
+    }
+}
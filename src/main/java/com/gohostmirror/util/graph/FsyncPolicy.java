@@ -0,0 +1,19 @@
+package com.gohostmirror.util.graph;
+
+public enum FsyncPolicy {
+    /*
+     * Mutations return after their log record is forced to disk. Concurrent writers share
+     * one force (group commit).
+     */
+    ALWAYS,
+    /*
+     * Records are written and forced by a background task at a fixed interval; a crash
+     * loses at most the last interval.
+     */
+    INTERVAL,
+    /*
+     * Records are handed to the OS before the mutation returns but never forced; survives a
+     * process crash, not a machine crash.
+     */
+    NEVER
+}
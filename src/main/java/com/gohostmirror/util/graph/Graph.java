@@ -4,8 +4,10 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface Graph<V, E> {
     @Contract(pure = true)
@@ -38,13 +40,57 @@ public interface Graph<V, E> {
     @Contract(pure = true)
     @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2);
 
+    /*
+     * Every edge from `vertex1` to `vertex2` (in either direction for undirected graphs). Holds
+     * at most one edge unless the graph was built on a map allowing parallel edges.
+     */
+    @Contract(pure = true)
+    default @NotNull Collection<E> connectingEdges(@NotNull V vertex1, @NotNull V vertex2) {
+        List<E> result = new ArrayList<>(1);
+        for (E edge : incidentEdges(vertex1)) {
+            // an edge removed since incidentEdges() has no ends
+            List<V> ends = incidentVertices(edge);
+            if (!ends.isEmpty() && PathFinder.opposite(ends, vertex1).equals(vertex2)) {
+                result.add(edge);
+            }
+        }
+        return result;
+    }
+
     @Contract(pure = true)
     @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex);
 
+    /*
+     * Shortest path of at most `maxDepth` edges that uses only vertices (endpoints included)
+     * and edges accepted by the filters; empty if there is none.
+     */
+    @Contract(pure = true)
+    @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex,
+                             @NotNull Predicate<? super V> vertexFilter,
+                             @NotNull Predicate<? super E> edgeFilter,
+                             int maxDepth);
+
+    /*
+     * Vertices at most `maxHops` edges away from `vertex` (along edge direction in directed
+     * graphs), nearest first and at most `limit` of them counting `vertex` itself; empty if
+     * `vertex` is absent. With `withEdges` the edges among them are returned too.
+     */
+    @Contract(pure = true)
+    @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit, boolean withEdges);
+
+    @Contract(pure = true)
+    default @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit) {
+        return neighbourhood(vertex, maxHops, limit, false);
+    }
+
     boolean addVertex (@NotNull V vertex);
 
     boolean addEdge (@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2);
 
+    boolean removeVertex(@NotNull V vertex);
+
+    boolean removeEdge(@NotNull E edge);
+
     @Contract(pure = true)
     boolean isConnection(@NotNull V vertex1, @NotNull V vertex2);
 }
@@ -0,0 +1,196 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Whole-graph scores computed over a CompactGraph snapshot. Results are indexed by
+ * CompactGraph vertex id. The source graph is only locked while the snapshot is taken.
+ */
+public interface GraphAnalytics {
+    double DEFAULT_DAMPING = 0.85;
+    double DEFAULT_TOLERANCE = 1e-9;
+    int DEFAULT_MAX_ITERATIONS = 100;
+
+    static @NotNull double[] pageRank(@NotNull CompactGraph<?> graph) {
+        return pageRank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Pull-based power iteration with two score buffers swapped per iteration. Stops when the
+     * L1 distance between iterations drops below `tolerance`. Rank of dangling vertices is
+     * spread uniformly; scores sum to 1.
+     */
+    static @NotNull double[] pageRank(@NotNull CompactGraph<?> graph, double damping, double tolerance,
+                                      int maxIterations, @NotNull ForkJoinPool pool) {
+        int n = graph.getVertexCount();
+        if (n == 0) {
+            return new double[0];
+        }
+        int[] offsets = graph.offsets();
+        CompactGraph<?> transposed = graph.transpose();
+        int[] inOffsets = transposed.offsets();
+        int[] inTargets = transposed.targets();
+        int grain = ParallelRange.grain(pool, n, 1024);
+
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] contribution = new double[n];
+        Arrays.fill(rank, 1d / n);
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] current = rank;
+            double dangling = ParallelRange.sumDouble(pool, n, grain, (from, to) -> {
+                double sum = 0;
+                for (int id = from; id < to; id++) {
+                    int degree = offsets[id + 1] - offsets[id];
+                    if (degree == 0) {
+                        contribution[id] = 0;
+                        sum += current[id];
+                    } else {
+                        contribution[id] = current[id] / degree;
+                    }
+                }
+                return sum;
+            });
+
+            double base = (1 - damping) / n + damping * dangling / n;
+            double[] target = next;
+            double delta = ParallelRange.sumDouble(pool, n, grain, (from, to) -> {
+                double sum = 0;
+                for (int id = from; id < to; id++) {
+                    double incoming = 0;
+                    for (int i = inOffsets[id]; i < inOffsets[id + 1]; i++) {
+                        incoming += contribution[inTargets[i]];
+                    }
+                    double score = base + damping * incoming;
+                    sum += Math.abs(score - current[id]);
+                    target[id] = score;
+                }
+                return sum;
+            });
+
+            next = rank;
+            rank = target;
+            if (delta < tolerance) {
+                break;
+            }
+        }
+        return rank;
+    }
+
+    /*
+     * Out-degree divided by n - 1. For undirected graphs this is the plain degree centrality.
+     */
+    static @NotNull double[] degreeCentrality(@NotNull CompactGraph<?> graph) {
+        int n = graph.getVertexCount();
+        double[] result = new double[n];
+        if (n < 2) {
+            return result;
+        }
+        for (int id = 0; id < n; id++) {
+            result[id] = (double) graph.degree(id) / (n - 1);
+        }
+        return result;
+    }
+
+    static @NotNull double[] closenessCentrality(@NotNull CompactGraph<?> graph) {
+        return closenessCentrality(graph, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Wasserman-Faust closeness over outgoing BFS distances: (r / (n - 1)) * (r / s), where r
+     * is the number of vertices reachable from the source and s the sum of their distances.
+     * One BFS per vertex; sources are split across the pool, each chunk reusing its scratch arrays.
+     */
+    static @NotNull double[] closenessCentrality(@NotNull CompactGraph<?> graph, @NotNull ForkJoinPool pool) {
+        int n = graph.getVertexCount();
+        double[] result = new double[n];
+        if (n < 2) {
+            return result;
+        }
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+
+        ParallelRange.forEach(pool, n, Math.max(1, n / (pool.getParallelism() * 4)), (from, to) -> {
+            int[] distance = new int[n];
+            int[] queue = new int[n];
+            for (int source = from; source < to; source++) {
+                Arrays.fill(distance, -1);
+                distance[source] = 0;
+                queue[0] = source;
+                int head = 0;
+                int tail = 1;
+                long distanceSum = 0;
+                while (head < tail) {
+                    int vertex = queue[head++];
+                    int nextDistance = distance[vertex] + 1;
+                    for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                        int adjacent = targets[i];
+                        if (distance[adjacent] < 0) {
+                            distance[adjacent] = nextDistance;
+                            distanceSum += nextDistance;
+                            queue[tail++] = adjacent;
+                        }
+                    }
+                }
+                int reached = tail - 1;
+                result[source] = reached == 0 ? 0d : ((double) reached / (n - 1)) * ((double) reached / distanceSum);
+            }
+        });
+        return result;
+    }
+
+    static @NotNull long[] triangleCounts(@NotNull CompactGraph<?> graph) {
+        return triangleCounts(graph, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Number of triangles through each vertex. Direction, self-loops and duplicate arcs are
+     * ignored. O(m * sqrt(m)) via sorted-list intersection over degree-oriented edges.
+     */
+    static @NotNull long[] triangleCounts(@NotNull CompactGraph<?> graph, @NotNull ForkJoinPool pool) {
+        return Triangles.count(graph, pool).counts;
+    }
+
+    static @NotNull double[] clusteringCoefficients(@NotNull CompactGraph<?> graph) {
+        return clusteringCoefficients(graph, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Local clustering coefficient: triangles through the vertex divided by the d(d - 1) / 2
+     * pairs of its d distinct neighbours; 0 when d < 2.
+     */
+    static @NotNull double[] clusteringCoefficients(@NotNull CompactGraph<?> graph, @NotNull ForkJoinPool pool) {
+        Triangles triangles = Triangles.count(graph, pool);
+        double[] result = new double[graph.getVertexCount()];
+        for (int id = 0; id < result.length; id++) {
+            long degree = triangles.degrees[id];
+            if (degree > 1) {
+                result[id] = 2d * triangles.counts[id] / (degree * (degree - 1));
+            }
+        }
+        return result;
+    }
+
+    static double transitivity(@NotNull CompactGraph<?> graph) {
+        return transitivity(graph, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Global clustering coefficient: 3 * triangles / connected triples.
+     */
+    static double transitivity(@NotNull CompactGraph<?> graph, @NotNull ForkJoinPool pool) {
+        Triangles triangles = Triangles.count(graph, pool);
+        long closed = 0;
+        long triples = 0;
+        for (int id = 0; id < triangles.counts.length; id++) {
+            long degree = triangles.degrees[id];
+            closed += triangles.counts[id];
+            triples += degree * (degree - 1) / 2;
+        }
+        return triples == 0 ? 0d : (double) closed / triples;
+    }
+}
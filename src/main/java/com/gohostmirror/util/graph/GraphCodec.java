@@ -0,0 +1,13 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public interface GraphCodec<T> {
+    void write(@NotNull DataOutput out, @NotNull T value) throws IOException;
+
+    @NotNull T read(@NotNull DataInput in) throws IOException;
+}
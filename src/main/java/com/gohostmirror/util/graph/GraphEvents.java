@@ -0,0 +1,171 @@
+package com.gohostmirror.util.graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/*
+ * Flight Recorder events for the graph hot paths. An event object is allocated and begun
+ * unconditionally, which the JIT removes while the event type is disabled; fields are only
+ * filled (vertices turned into strings) after shouldCommit() says the event will be kept.
+ */
+final class GraphEvents {
+    private GraphEvents() {
+    }
+
+    @Name("com.gohostmirror.graph.PathSearch")
+    @Label("Graph Path Search")
+    @Category("Graph")
+    @StackTrace(false)
+    static final class PathSearch extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Target")
+        String target;
+
+        @Label("Visited Vertices")
+        int visited;
+
+        @Label("Path Length")
+        int pathLength;
+    }
+
+    @Name("com.gohostmirror.graph.WriteLockWait")
+    @Label("Graph Write Lock Wait")
+    @Category("Graph")
+    @Threshold("10 ms")
+    static final class WriteLockWait extends Event {
+        @Label("Graph")
+        String graph;
+
+        @Label("Shard")
+        int shard;
+    }
+
+    @Name("com.gohostmirror.graph.BulkLoad")
+    @Label("Graph Bulk Load")
+    @Category("Graph")
+    @StackTrace(false)
+    static final class BulkLoad extends Event {
+        @Label("Graph")
+        String graph;
+
+        @Label("Source")
+        String source;
+
+        @Label("Vertices")
+        int vertices;
+
+        @Label("Edges")
+        int edges;
+    }
+
+    /*
+     * Commits `event` if it is enabled and returns `path`; `path` is empty when none was found.
+     */
+    static <V> @NotNull List<V> pathSearched(@NotNull PathSearch event, @NotNull V fromVertex, @NotNull V toVertex,
+                                             int visited, @NotNull List<V> path) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = String.valueOf(fromVertex);
+            event.target = String.valueOf(toVertex);
+            event.visited = visited;
+            event.pathLength = path.isEmpty() ? -1 : path.size() - 1;
+            event.commit();
+        }
+        return path;
+    }
+
+    static void bulkLoaded(@NotNull BulkLoad event, @NotNull Graph<?, ?> graph, @NotNull String source) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.graph = graph.getClass().getSimpleName();
+            event.source = source;
+            event.vertices = graph.getVertexCount();
+            event.edges = graph.getEdgeCount();
+            event.commit();
+        }
+    }
+
+    /*
+     * Wraps a write lock so that acquisitions which have to wait longer than the
+     * WriteLockWait threshold are recorded. Uncontended acquisitions take the tryLock() fast
+     * path and never touch the event.
+     */
+    static @NotNull Lock monitorWaits(@NotNull Lock lock, @NotNull String graph, int shard) {
+        return new MonitoredLock(lock, graph, shard);
+    }
+
+    private static final class MonitoredLock implements Lock {
+        private final Lock lock;
+        private final String graph;
+        private final int shard;
+
+        private MonitoredLock(@NotNull Lock lock, @NotNull String graph, int shard) {
+            this.lock = lock;
+            this.graph = graph;
+            this.shard = shard;
+        }
+
+        @Override
+        public void lock() {
+            if (lock.tryLock()) {
+                return;
+            }
+            WriteLockWait event = new WriteLockWait();
+            event.begin();
+            lock.lock();
+            commit(event);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            if (lock.tryLock()) {
+                return;
+            }
+            WriteLockWait event = new WriteLockWait();
+            event.begin();
+            lock.lockInterruptibly();
+            commit(event);
+        }
+
+        @Override
+        public boolean tryLock() {
+            return lock.tryLock();
+        }
+
+        @Override
+        public boolean tryLock(long time, @NotNull TimeUnit unit) throws InterruptedException {
+            return lock.tryLock(time, unit);
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+        }
+
+        @Override
+        public @NotNull Condition newCondition() {
+            return lock.newCondition();
+        }
+
+        private void commit(@NotNull WriteLockWait event) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.graph = graph;
+                event.shard = shard;
+                event.commit();
+            }
+        }
+    }
+}
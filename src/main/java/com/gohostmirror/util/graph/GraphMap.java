@@ -5,7 +5,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public interface GraphMap<V, E> {
     @Contract(pure = true)
@@ -41,9 +43,57 @@ public interface GraphMap<V, E> {
     @Contract(pure = true)
     @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2);
 
+    /*
+     * Every edge from `vertex1` to `vertex2`; more than one only if parallel edges are allowed.
+     */
+    @Contract(pure = true)
+    default @NotNull Collection<E> connectingEdges(@NotNull V vertex1, @NotNull V vertex2) {
+        E edge = getEdge(vertex1, vertex2);
+        return edge == null ? Collections.emptyList() : Collections.singletonList(edge);
+    }
+
+    /*
+     * True if adding an edge between already connected vertices succeeds. Such maps must not
+     * have addEdges input deduplicated by connection.
+     */
+    @Contract(pure = true)
+    default boolean allowsParallelEdges() {
+        return false;
+    }
+
     boolean addVertex(@NotNull V vertex);
 
     boolean addDirectEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2);
 
     boolean addBidirectionalEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2);
+
+    /*
+     * Adds edges that are known to be new and pairwise distinct in edge and, unless parallel
+     * edges are allowed, in connection.
+     * Implementations may build the adjacency on `pool`.
+     */
+    default void addEdges(@NotNull List<? extends EdgeTriple<V, E>> edges, boolean bidirectional,
+                          @NotNull ForkJoinPool pool) {
+        for (EdgeTriple<V, E> triple : edges) {
+            if (bidirectional) {
+                addBidirectionalEdge(triple.edge(), triple.vertex1(), triple.vertex2());
+            } else {
+                addDirectEdge(triple.edge(), triple.vertex1(), triple.vertex2());
+            }
+        }
+    }
+
+    /*
+     * Removes the vertex and every edge incident to it. Implementations may leave entries that
+     * point at the removed vertex in place as tombstones; they are invisible to every read
+     * method and reclaimed by compact().
+     */
+    boolean removeVertex(@NotNull V vertex);
+
+    boolean removeEdge(@NotNull E edge);
+
+    @Contract(pure = true)
+    boolean needsCompaction();
+
+    void compact();
 }
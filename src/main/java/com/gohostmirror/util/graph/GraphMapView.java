@@ -0,0 +1,130 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Read-only GraphMap over the public Graph API, for graphs that do not expose their own map.
+ * Every call goes through the graph, so it is only as consistent as the graph's own methods.
+ */
+class GraphMapView<V, E> implements GraphMap<V, E> {
+    private final Graph<V, E> graph;
+
+    GraphMapView(@NotNull Graph<V, E> graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getVertexCount() {
+        return graph.getVertexCount();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getEdgeCount() {
+        return graph.getEdgeCount();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isVertex(@NotNull V vertex) {
+        return graph.isVertex(vertex);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isEdge(@NotNull E edge) {
+        return graph.isEdge(edge);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectConnection(@NotNull V vertex1, @NotNull V vertex2) {
+        return graph.getEdge(vertex1, vertex2) != null;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<V> getVertices() {
+        return graph.getVertices();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> getEdges() {
+        return graph.getEdges();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<V> adjacentVertices(@NotNull V vertex) {
+        Collection<E> edges = graph.incidentEdges(vertex);
+        List<V> result = new ArrayList<>(edges.size());
+        for (E edge : edges) {
+            List<V> ends = graph.incidentVertices(edge);
+            if (ends.size() == 2) {
+                result.add(ends.get(0).equals(vertex) ? ends.get(1) : ends.get(0));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+        return graph.incidentEdges(vertex);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> incidentVertices(@NotNull E edge) {
+        return graph.incidentVertices(edge);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+        return graph.getEdge(vertex1, vertex2);
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addDirectEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addBidirectionalEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean needsCompaction() {
+        return false;
+    }
+
+    @Override
+    public void compact() {
+    }
+}
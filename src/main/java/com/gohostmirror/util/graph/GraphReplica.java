@@ -0,0 +1,140 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.InflaterInputStream;
+
+/*
+ * Replica side of graph replication: reads frames written by ReplicationSource.writeDelta()
+ * from any byte stream and applies them to a local graph. Records are decoded before the
+ * graph is touched and then applied under a single write lock acquisition.
+ */
+public final class GraphReplica<V, E> {
+    private final Graph<V, E> graph;
+    private final GraphCodec<V> vertexCodec;
+    private final GraphCodec<E> edgeCodec;
+    private volatile long version;
+
+    public GraphReplica(@NotNull Graph<V, E> graph, @NotNull GraphCodec<V> vertexCodec, @NotNull GraphCodec<E> edgeCodec) {
+        this.graph = graph;
+        this.vertexCodec = vertexCodec;
+        this.edgeCodec = edgeCodec;
+    }
+
+    @Contract(pure = true)
+    public @NotNull Graph<V, E> graph() {
+        return graph;
+    }
+
+    /*
+     * The source version this replica has caught up to; pass it to writeDelta().
+     */
+    @Contract(pure = true)
+    public long version() {
+        return version;
+    }
+
+    /*
+     * Reads and applies one frame; returns the new replica version. Throws EOFException when
+     * the stream ends before a frame starts.
+     */
+    @SuppressWarnings("unchecked")
+    public long apply(@NotNull InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != ReplicationSource.FRAME_MAGIC) {
+            throw new IOException("Not a replication frame");
+        }
+        byte kind = in.readByte();
+        long fromVersion = in.readLong();
+        long toVersion = in.readLong();
+        int count = in.readInt();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+
+        if (kind == ReplicationSource.DELTA && fromVersion != version) {
+            throw new IOException("Delta from version " + fromVersion + " cannot be applied at version " + version);
+        }
+        if (kind != ReplicationSource.DELTA && kind != ReplicationSource.SNAPSHOT) {
+            throw new IOException("Unknown frame kind " + kind);
+        }
+
+        byte[] types = new byte[count];
+        Object[] values = new Object[count * 3];
+        try (DataInputStream records = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+            for (int i = 0; i < count; i++) {
+                types[i] = records.readByte();
+                if (types[i] == WriteAheadLog.EDGE) {
+                    values[i * 3] = edgeCodec.read(records);
+                    values[i * 3 + 1] = vertexCodec.read(records);
+                    values[i * 3 + 2] = vertexCodec.read(records);
+                } else if (types[i] == WriteAheadLog.REMOVE_EDGE) {
+                    values[i * 3] = edgeCodec.read(records);
+                } else if (types[i] == WriteAheadLog.VERTEX || types[i] == WriteAheadLog.REMOVE_VERTEX) {
+                    values[i * 3 + 1] = vertexCodec.read(records);
+                } else {
+                    throw new IOException("Unknown record type " + types[i]);
+                }
+            }
+        }
+
+        Runnable batch = () -> {
+            if (kind == ReplicationSource.SNAPSHOT) {
+                retainSnapshot(types, values);
+            }
+            for (int i = 0; i < count; i++) {
+                switch (types[i]) {
+                    case WriteAheadLog.VERTEX:
+                        graph.addVertex((V) values[i * 3 + 1]);
+                        break;
+                    case WriteAheadLog.EDGE:
+                        graph.addEdge((E) values[i * 3], (V) values[i * 3 + 1], (V) values[i * 3 + 2]);
+                        break;
+                    case WriteAheadLog.REMOVE_VERTEX:
+                        graph.removeVertex((V) values[i * 3 + 1]);
+                        break;
+                    default:
+                        graph.removeEdge((E) values[i * 3]);
+                        break;
+                }
+            }
+        };
+        if (graph instanceof AbstractConcurrentGraph) {
+            ((AbstractConcurrentGraph<V, E>) graph).writeBatch(batch);
+        } else {
+            batch.run();
+        }
+        version = toVersion;
+        return toVersion;
+    }
+
+    /*
+     * Removes whatever the replica has that the snapshot does not, including edges whose
+     * endpoints changed; re-adding what both have is then harmless.
+     */
+    @SuppressWarnings("unchecked")
+    private void retainSnapshot(@NotNull byte[] types, @NotNull Object[] values) {
+        Set<Object> vertices = new HashSet<>();
+        Map<Object, List<Object>> edges = new HashMap<>();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == WriteAheadLog.EDGE) {
+                edges.put(values[i * 3], Arrays.asList(values[i * 3 + 1], values[i * 3 + 2]));
+            } else {
+                vertices.add(values[i * 3 + 1]);
+            }
+        }
+        for (E edge : List.copyOf(graph.getEdges())) {
+            List<Object> ends = edges.get(edge);
+            if (ends == null || !ends.equals(graph.incidentVertices(edge))) {
+                graph.removeEdge(edge);
+            }
+        }
+        for (V vertex : List.copyOf(graph.getVertices())) {
+            if (!vertices.contains(vertex)) {
+                graph.removeVertex(vertex);
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.gohostmirror.util.graph;
 
-import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
 public interface Graphs {
     static  <V, E> Graph<V, E> directedConcurrentGraph() {
         return new DirectedConcurrentGraph<>();
@@ -11,63 +14,81 @@ public interface Graphs {
     static <V, E> Graph<V, E> undirectedConcurrentGraph() {
         return new UndirectedConcurrentGraph<>();
     }
-}
 
-class DirectedConcurrentGraph<V, E> extends AbstractConcurrentGraph<V, E> {
-    @Override
-    @Contract(pure = true)
-    public boolean isDirectedGraph() {
-        return true;
+    static <V, E> Graph<V, E> directedConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory) {
+        return new DirectedConcurrentGraph<>(factory);
     }
 
-    @Override
-    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
-        writeLock.lock();
-        try {
-            return map.addDirectEdge(edge, vertex1, vertex2);
-        } finally {
-            writeLock.unlock();
-        }
+    static <V, E> Graph<V, E> undirectedConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory) {
+        return new UndirectedConcurrentGraph<>(factory);
     }
 
-    @Override
-    @Contract(pure = true)
-    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
-        readLock.lock();
-        try {
-            return map.isDirectConnection(vertex1, vertex2);
-        } finally {
-            readLock.unlock();
-        }
+    /*
+     * Graph holding the edges that sequential addEdge calls in stream encounter order would
+     * have accepted. Duplicates are found in parallel on the common pool; whether the map is
+     * also filled in parallel depends on the factory (MixedGraphFactory partly does).
+     */
+    static <V, E> Graph<V, E> directedConcurrentGraph(@NotNull Stream<? extends EdgeTriple<V, E>> edges) {
+        return directedConcurrentGraph(new MixedGraphFactory<>(), edges);
     }
 
-}
+    static <V, E> Graph<V, E> undirectedConcurrentGraph(@NotNull Stream<? extends EdgeTriple<V, E>> edges) {
+        return undirectedConcurrentGraph(new MixedGraphFactory<>(), edges);
+    }
+
+    static <V, E> Graph<V, E> directedConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory,
+                                                      @NotNull Stream<? extends EdgeTriple<V, E>> edges) {
+        return ParallelGraphBuilder.build(new DirectedConcurrentGraph<>(factory), edges, ForkJoinPool.commonPool());
+    }
+
+    static <V, E> Graph<V, E> undirectedConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory,
+                                                        @NotNull Stream<? extends EdgeTriple<V, E>> edges) {
+        return ParallelGraphBuilder.build(new UndirectedConcurrentGraph<>(factory), edges, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Graphs that accept parallel edges between the same vertices; see MultigraphFactory.
+     */
+    static <V, E> Graph<V, E> directedMultigraph() {
+        return new DirectedConcurrentGraph<>(new MultigraphFactory<>());
+    }
+
+    static <V, E> Graph<V, E> undirectedMultigraph() {
+        return new UndirectedConcurrentGraph<>(new MultigraphFactory<>());
+    }
+
+    static <V, E> Graph<V, E> directedShardedGraph(int shardCount) {
+        return new DirectedShardedGraph<>(shardCount);
+    }
+
+    static <V, E> Graph<V, E> undirectedShardedGraph(int shardCount) {
+        return new UndirectedShardedGraph<>(shardCount);
+    }
+
+    static <V, E> Graph<V, E> directedShardedGraph(@NotNull AbstractGraphFactory<V, E> factory, int shardCount) {
+        return new DirectedShardedGraph<>(factory, shardCount);
+    }
+
+    static <V, E> Graph<V, E> undirectedShardedGraph(@NotNull AbstractGraphFactory<V, E> factory, int shardCount) {
+        return new UndirectedShardedGraph<>(factory, shardCount);
+    }
+
+    /*
+     * Directed graph that rejects edges closing a cycle and keeps a topological order.
+     */
+    static <V, E> DagGraph<V, E> directedAcyclicGraph() {
+        return new DirectedAcyclicConcurrentGraph<>();
+    }
+
+    static <V, E> DagGraph<V, E> directedAcyclicGraph(@NotNull AbstractGraphFactory<V, E> factory) {
+        return new DirectedAcyclicConcurrentGraph<>(factory);
+    }
 
-class UndirectedConcurrentGraph<V, E> extends AbstractConcurrentGraph<V, E> {
-    @Override
-    @Contract(pure = true)
-    public boolean isDirectedGraph() {
-        return false;
-    }
-
-    @Override
-    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
-        writeLock.lock();
-        try {
-            return map.addBidirectionalEdge(edge, vertex1, vertex2);
-        } finally {
-            writeLock.unlock();
-        }
-    }
-
-    @Override
-    @Contract(pure = true)
-    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
-        readLock.lock();
-        try {
-            return map.isDirectConnection(vertex1, vertex2) && map.isDirectConnection(vertex2, vertex1);
-        } finally {
-            readLock.unlock();
-        }
+    /*
+     * Read-only view of `graph` restricted to the accepted vertices and edges, without copying.
+     */
+    static <V, E> Graph<V, E> subgraph(@NotNull Graph<V, E> graph, @NotNull Predicate<? super V> vertexFilter,
+                                       @NotNull Predicate<? super E> edgeFilter) {
+        return new SubgraphView<>(graph, vertexFilter, edgeFilter);
     }
 }
@@ -5,20 +5,45 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
+    private static final int COMPACTION_THRESHOLD = 1024;
+    private static final int SHRINK_THRESHOLD = 16;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
     @Override
     public GraphMap<V, E> graphMap() {
         return new MixedGraphMap();
     }
 
+    /*
+     * Removing a vertex unlinks its own adjacency and every bidirectional edge eagerly. Direct
+     * edges pointing at it live in other vertices' maps and are not indexed, so the vertex is
+     * recorded as a tombstone instead, with the stamp of its removal: an entry targeting it is
+     * dead if its edge was stamped before that, is skipped by reads and dropped by compact().
+     * The stamps let a removed vertex be added again, and dead entries be overwritten one at
+     * a time, without sweeping the map. While there are no tombstones every read takes the
+     * original path.
+     */
     private class MixedGraphMap implements GraphMap<V, E> {
         private final SafeMap<V, E> dummy = new SafeMap<>(Collections.emptyMap());
         private final Map<V, SafeMap<V, E>> vertices = new HashMap<>();
         private final Map<E, VertexPair<V>> edges = new HashMap<>();
+        private final Map<V, Long> tombstones = new HashMap<>();
+        private long stamp;
+        private int deadEdges;
+        private int removedEntries;
 
         private final Set<V> verticesKeySet = Collections.unmodifiableSet(vertices.keySet());
         private final Set<E> edgesKeySet = Collections.unmodifiableSet(edges.keySet());
+        private final Collection<E> liveEdgesKeySet = new FilteredCollection<>(edgesKeySet, edge -> !isDead(edges.get(edge))) {
+            @Override
+            public int size() {
+                return getEdgeCount();
+            }
+        };
 
         @Override
         @Contract(pure = true)
@@ -29,7 +54,7 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
         @Override
         @Contract(pure = true)
         public int getEdgeCount() {
-            return edges.size();
+            return edges.size() - deadEdges;
         }
 
         @Override
@@ -41,13 +66,14 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
         @Override
         @Contract(pure = true)
         public boolean isEdge(@NotNull E edge) {
-            return edges.containsKey(edge);
+            VertexPair<V> vertexPair = edges.get(edge);
+            return vertexPair != null && !isDead(vertexPair);
         }
 
         @Override
         @Contract(pure = true)
         public boolean isDirectConnection(@NotNull V vertex1, @NotNull V vertex2) {
-            return adjacentVertices(vertex1).contains(vertex2);
+            return getEdge(vertex1, vertex2) != null;
         }
 
         @Override
@@ -59,26 +85,40 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
         @Override
         @Contract(pure = true)
         public @NotNull Collection<E> getEdges() {
-            return edgesKeySet;
+            return tombstones.isEmpty() ? edgesKeySet : liveEdgesKeySet;
         }
 
         @Override
         @Contract(pure = true)
-        public @NotNull Set<V> adjacentVertices(@NotNull V vertex) {
-            return getConnectionMap(vertex).keySet();
+        public @NotNull Collection<V> adjacentVertices(@NotNull V vertex) {
+            SafeMap<V, E> connectionMap = getConnectionMap(vertex);
+            if (tombstones.isEmpty()) {
+                return connectionMap.keySet();
+            }
+            return new FilteredCollection<>(connectionMap.keySet(), adjacent -> isLive(adjacent, connectionMap.get(adjacent)));
         }
 
         @Override
         @Contract(pure = true)
         public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
-            return getConnectionMap(vertex).values();
+            SafeMap<V, E> connectionMap = getConnectionMap(vertex);
+            if (tombstones.isEmpty()) {
+                return connectionMap.values();
+            }
+            List<E> result = new ArrayList<>(connectionMap.size());
+            for (Map.Entry<V, E> entry : connectionMap.entries()) {
+                if (isLive(entry.getKey(), entry.getValue())) {
+                    result.add(entry.getValue());
+                }
+            }
+            return Collections.unmodifiableList(result);
         }
 
         @Override
         @Contract(pure = true)
         public @NotNull List<V> incidentVertices(@NotNull E edge) {
             VertexPair<V> vertexPair = edges.get(edge);
-            if (vertexPair == null) {
+            if (vertexPair == null || isDead(vertexPair)) {
                 return Collections.emptyList();
             }
             return vertexPair.list();
@@ -87,7 +127,8 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
         @Override
         @Contract(pure = true)
         public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
-            return getConnectionMap(vertex1).get(vertex2);
+            E edge = getConnectionMap(vertex1).get(vertex2);
+            return edge == null || isLive(vertex2, edge) ? edge : null;
         }
 
         @Override
@@ -106,8 +147,10 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
 
             addVertex(vertex1);
             addVertex(vertex2);
-            getOrCreateNotDummyConnectionMap(vertex1).put(vertex2, edge);
-            edges.put(edge, new VertexPair<>(vertex1, vertex2));
+            dropIfDead(edge);
+            putConnection(vertex1, vertex2, edge);
+            getOrCreateNotDummyConnectionMap(vertex2).inDegree++;
+            edges.put(edge, new VertexPair<>(vertex1, vertex2, false, ++stamp));
 
             return true;
         }
@@ -122,13 +165,225 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
 
             addVertex(vertex1);
             addVertex(vertex2);
-            getOrCreateNotDummyConnectionMap(vertex1).put(vertex2, edge);
-            getOrCreateNotDummyConnectionMap(vertex2).put(vertex1, edge);
-            edges.put(edge, new VertexPair<>(vertex1, vertex2));
+            dropIfDead(edge);
+            putConnection(vertex1, vertex2, edge);
+            putConnection(vertex2, vertex1, edge);
+            edges.put(edge, new VertexPair<>(vertex1, vertex2, true, ++stamp));
 
             return true;
         }
 
+        /*
+         * On an empty map the adjacency and the edge index are built in parallel: arcs are
+         * bucketed by the hash of the vertex whose map they go into and edges by their own
+         * hash, and every bucket fills private maps for its keys. The per-bucket maps are
+         * then merged into the two backing HashMaps on one thread, an O(n + m) pass of
+         * hashing, so only the bucketing and the per-bucket maps scale with cores; the load
+         * as a whole does not speed up linearly.
+         */
+        @Override
+        public void addEdges(@NotNull List<? extends EdgeTriple<V, E>> triples, boolean bidirectional,
+                             @NotNull ForkJoinPool pool) {
+            if (!vertices.isEmpty() || triples.size() < PARALLEL_THRESHOLD) {
+                GraphMap.super.addEdges(triples, bidirectional, pool);
+                return;
+            }
+            int m = triples.size();
+            int bucketCount = pool.getParallelism() * 4;
+            int grain = ParallelRange.grain(pool, m, 1024);
+            // arc 2j goes into vertex1's map, arc 2j + 1 into vertex2's
+            int[] arcBuckets = new int[2 * m];
+            int[] edgeBuckets = new int[m];
+            ParallelRange.forEach(pool, m, grain, (from, to) -> {
+                for (int j = from; j < to; j++) {
+                    EdgeTriple<V, E> triple = triples.get(j);
+                    arcBuckets[2 * j] = Math.floorMod(spread(triple.vertex1().hashCode()), bucketCount);
+                    arcBuckets[2 * j + 1] = Math.floorMod(spread(triple.vertex2().hashCode()), bucketCount);
+                    edgeBuckets[j] = Math.floorMod(spread(triple.edge().hashCode()), bucketCount);
+                }
+            });
+            int[] arcOffsets = new int[bucketCount + 1];
+            int[] arcs = scatter(pool, arcBuckets, arcOffsets, 2 * grain);
+            int[] edgeOffsets = new int[bucketCount + 1];
+            int[] edgeOrder = scatter(pool, edgeBuckets, edgeOffsets, grain);
+
+            long batchStamp = ++stamp;
+            List<Map<V, SafeMap<V, E>>> partialVertices = new ArrayList<>(Collections.nCopies(bucketCount, null));
+            List<Map<E, VertexPair<V>>> partialEdges = new ArrayList<>(Collections.nCopies(bucketCount, null));
+            ParallelRange.forEach(pool, 2 * bucketCount, 1, (from, to) -> {
+                for (int task = from; task < to; task++) {
+                    int bucket = task >> 1;
+                    if ((task & 1) == 1) {
+                        Map<E, VertexPair<V>> local = new HashMap<>();
+                        for (int i = edgeOffsets[bucket]; i < edgeOffsets[bucket + 1]; i++) {
+                            EdgeTriple<V, E> triple = triples.get(edgeOrder[i]);
+                            local.put(triple.edge(), new VertexPair<>(triple.vertex1(), triple.vertex2(), bidirectional, batchStamp));
+                        }
+                        partialEdges.set(bucket, local);
+                        continue;
+                    }
+                    Map<V, SafeMap<V, E>> local = new HashMap<>();
+                    for (int i = arcOffsets[bucket]; i < arcOffsets[bucket + 1]; i++) {
+                        EdgeTriple<V, E> triple = triples.get(arcs[i] >> 1);
+                        boolean forward = (arcs[i] & 1) == 0;
+                        V vertex = forward ? triple.vertex1() : triple.vertex2();
+                        SafeMap<V, E> connectionMap = local.computeIfAbsent(vertex, key -> new SafeMap<>());
+                        if (forward) {
+                            connectionMap.put(triple.vertex2(), triple.edge());
+                        } else if (bidirectional) {
+                            connectionMap.put(triple.vertex1(), triple.edge());
+                        } else {
+                            connectionMap.inDegree++;
+                        }
+                    }
+                    partialVertices.set(bucket, local);
+                }
+            });
+            for (Map<V, SafeMap<V, E>> local : partialVertices) {
+                vertices.putAll(local);
+            }
+            for (Map<E, VertexPair<V>> local : partialEdges) {
+                edges.putAll(local);
+            }
+        }
+
+        @Override
+        public boolean removeVertex(@NotNull V vertex) {
+            SafeMap<V, E> connectionMap = vertices.remove(vertex);
+            if (connectionMap == null) {
+                return false;
+            }
+            for (Map.Entry<V, E> entry : connectionMap.entries()) {
+                V adjacent = entry.getKey();
+                VertexPair<V> vertexPair = edges.remove(entry.getValue());
+                if (isDead(vertexPair)) {
+                    deadEdges--;
+                } else if (adjacent.equals(vertex)) {
+                    if (!vertexPair.bidirectional) {
+                        connectionMap.inDegree--;
+                    }
+                } else if (vertexPair.bidirectional) {
+                    getConnectionMap(adjacent).remove(vertex);
+                    removedEntries++;
+                } else {
+                    getConnectionMap(adjacent).inDegree--;
+                }
+            }
+            if (connectionMap.inDegree > 0) {
+                tombstones.put(vertex, ++stamp);
+                deadEdges += connectionMap.inDegree;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean removeEdge(@NotNull E edge) {
+            VertexPair<V> vertexPair = edges.get(edge);
+            if (vertexPair == null || isDead(vertexPair)) {
+                return false;
+            }
+            edges.remove(edge);
+            V vertex1 = vertexPair.first();
+            V vertex2 = vertexPair.second();
+            getConnectionMap(vertex1).remove(vertex2);
+            removedEntries++;
+            if (vertexPair.bidirectional) {
+                getConnectionMap(vertex2).remove(vertex1);
+                removedEntries++;
+            } else {
+                getConnectionMap(vertex2).inDegree--;
+            }
+            return true;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean needsCompaction() {
+            return deadEdges + removedEntries > Math.max(COMPACTION_THRESHOLD, edges.size() >> 3);
+        }
+
+        /*
+         * Drops entries pointing at tombstones and rebuilds adjacency maps that have shrunk to
+         * a quarter of their peak size (HashMap never gives back its table).
+         */
+        @Override
+        public void compact() {
+            for (Map.Entry<V, SafeMap<V, E>> entry : vertices.entrySet()) {
+                SafeMap<V, E> connectionMap = entry.getValue();
+                if (connectionMap == dummy) {
+                    continue;
+                }
+                if (!tombstones.isEmpty()) {
+                    Iterator<Map.Entry<V, E>> iterator = connectionMap.entries().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<V, E> connection = iterator.next();
+                        if (!isLive(connection.getKey(), connection.getValue())) {
+                            edges.remove(connection.getValue());
+                            iterator.remove();
+                        }
+                    }
+                }
+                if (connectionMap.size() == 0 && connectionMap.inDegree == 0) {
+                    entry.setValue(dummy);
+                } else if (connectionMap.highWater >= SHRINK_THRESHOLD && connectionMap.size() * 4 < connectionMap.highWater) {
+                    entry.setValue(connectionMap.copy());
+                }
+            }
+            tombstones.clear();
+            deadEdges = 0;
+            removedEntries = 0;
+        }
+
+        private int spread(int hash) {
+            return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+        }
+
+        /*
+         * Whether the entry `adjacent` -> `edge` of some connection map is live.
+         */
+        private boolean isLive(@NotNull V adjacent, @NotNull E edge) {
+            if (tombstones.isEmpty()) {
+                return true;
+            }
+            Long removed = tombstones.get(adjacent);
+            return removed == null || edges.get(edge).stamp > removed;
+        }
+
+        private boolean isDead(@NotNull VertexPair<V> vertexPair) {
+            if (tombstones.isEmpty()) {
+                return false;
+            }
+            Long removed = tombstones.get(vertexPair.second());
+            return removed != null && vertexPair.stamp < removed;
+        }
+
+        /*
+         * Unlinks the dead entry of `edge`, if there is one, so the edge can be added again.
+         */
+        private void dropIfDead(@NotNull E edge) {
+            VertexPair<V> vertexPair = edges.get(edge);
+            if (vertexPair != null && isDead(vertexPair)) {
+                edges.remove(edge);
+                getConnectionMap(vertexPair.first()).remove(vertexPair.second());
+                deadEdges--;
+                removedEntries++;
+            }
+        }
+
+        /*
+         * Puts a connection, discarding the dead entry it replaces if `to` was removed and added
+         * again.
+         */
+        private void putConnection(@NotNull V from, @NotNull V to, @NotNull E edge) {
+            SafeMap<V, E> connectionMap = getOrCreateNotDummyConnectionMap(from);
+            E replaced = connectionMap.get(to);
+            if (replaced != null && !replaced.equals(edge)) {
+                edges.remove(replaced);
+                deadEdges--;
+            }
+            connectionMap.put(to, edge);
+        }
+
         private @NotNull SafeMap<V, E> getConnectionMap(@NotNull V vertex) {
             return Objects.requireNonNullElse(vertices.get(vertex), dummy);
         }
@@ -144,10 +399,125 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
         }
     }
 
+    /*
+     * Returns the indices of `buckets` grouped by bucket, stable within a bucket, and fills
+     * offsets[b] .. offsets[b + 1] with each bucket's range. Chunks of `grain` indices count
+     * and then place their own entries in parallel.
+     */
+    private static @NotNull int[] scatter(@NotNull ForkJoinPool pool, @NotNull int[] buckets,
+                                          @NotNull int[] offsets, int grain) {
+        int bucketCount = offsets.length - 1;
+        int chunks = (buckets.length + grain - 1) / grain;
+        int[][] cursors = new int[chunks][bucketCount];
+        ParallelRange.forEach(pool, chunks, 1, (from, to) -> {
+            for (int chunk = from; chunk < to; chunk++) {
+                int[] counts = cursors[chunk];
+                for (int i = chunk * grain, end = Math.min(buckets.length, i + grain); i < end; i++) {
+                    counts[buckets[i]]++;
+                }
+            }
+        });
+        // chunk c writes bucket b from offsets[b] plus the counts of the chunks before it
+        int position = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            offsets[bucket] = position;
+            for (int[] counts : cursors) {
+                int count = counts[bucket];
+                counts[bucket] = position;
+                position += count;
+            }
+        }
+        offsets[bucketCount] = position;
+        int[] items = new int[buckets.length];
+        ParallelRange.forEach(pool, chunks, 1, (from, to) -> {
+            for (int chunk = from; chunk < to; chunk++) {
+                int[] cursor = cursors[chunk];
+                for (int i = chunk * grain, end = Math.min(buckets.length, i + grain); i < end; i++) {
+                    items[cursor[buckets[i]]++] = i;
+                }
+            }
+        });
+        return items;
+    }
+
+    private static class FilteredCollection<T> extends AbstractCollection<T> {
+        private final Collection<T> collection;
+        private final Predicate<T> filter;
+
+        private FilteredCollection(Collection<T> collection, Predicate<T> filter) {
+            this.collection = collection;
+            this.filter = filter;
+        }
+
+        @Override
+        public @NotNull Iterator<T> iterator() {
+            return new FilterIterator<>(collection.iterator(), filter);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (T element : collection) {
+                if (filter.test(element)) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean contains(Object o) {
+            return collection.contains(o) && filter.test((T) o);
+        }
+    }
+
+    private static class FilterIterator<T> implements Iterator<T> {
+        private final Iterator<T> iterator;
+        private final Predicate<T> filter;
+        private T next;
+        private boolean hasNext;
+
+        private FilterIterator(Iterator<T> iterator, Predicate<T> filter) {
+            this.iterator = iterator;
+            this.filter = filter;
+            advance();
+        }
+
+        private void advance() {
+            hasNext = false;
+            while (iterator.hasNext()) {
+                T candidate = iterator.next();
+                if (filter.test(candidate)) {
+                    next = candidate;
+                    hasNext = true;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            advance();
+            return result;
+        }
+    }
+
     private static class SafeMap<V, E> {
         private final Map<V, E> map;
         private final Set<V> keySet;
         private final Collection<E> values;
+        private int inDegree;
+        private int highWater;
 
         SafeMap() {
             this(new HashMap<>());
@@ -157,16 +527,26 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
             this.map = map;
             this.keySet = Collections.unmodifiableSet(map.keySet());
             this.values = Collections.unmodifiableCollection(map.values());
+            this.highWater = map.size();
         }
 
         void put(V key, E value) {
             map.put(key, value);
+            highWater = Math.max(highWater, map.size());
         }
 
         E get(V key) {
             return map.get(key);
         }
 
+        void remove(V key) {
+            map.remove(key);
+        }
+
+        int size() {
+            return map.size();
+        }
+
         Set<V> keySet() {
             return keySet;
         }
@@ -174,15 +554,29 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
         Collection<E> values() {
             return values;
         }
+
+        Set<Map.Entry<V, E>> entries() {
+            return map.entrySet();
+        }
+
+        SafeMap<V, E> copy() {
+            SafeMap<V, E> copy = new SafeMap<>(new HashMap<>(map));
+            copy.inDegree = inDegree;
+            return copy;
+        }
     }
 
     private static class VertexPair<V> {
         private final List<V> vertices = new ArrayList<>(2);
         private final List<V> unmodifiableVertices = Collections.unmodifiableList(vertices);
+        private final boolean bidirectional;
+        private final long stamp;
 
-        private VertexPair(@NotNull V vertex1, @NotNull V vertex2) {
+        private VertexPair(@NotNull V vertex1, @NotNull V vertex2, boolean bidirectional, long stamp) {
             vertices.add(vertex1);
             vertices.add(vertex2);
+            this.bidirectional = bidirectional;
+            this.stamp = stamp;
         }
 
         @Contract(pure = true)
@@ -190,6 +584,16 @@ public class MixedGraphFactory<V, E> implements AbstractGraphFactory<V, E> {
             return unmodifiableVertices;
         }
 
+        @Contract(pure = true)
+        @NotNull V first() {
+            return vertices.get(0);
+        }
+
+        @Contract(pure = true)
+        @NotNull V second() {
+            return vertices.get(1);
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -0,0 +1,562 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * Graph maps that allow any number of parallel edges between two vertices. Adding an edge
+ * fails only if the edge itself is already present; getEdge() returns one of the parallel
+ * edges and connectingEdges() all of them.
+ *
+ * Vertices and edges get dense ids from two ObjectIndexes, and everything else is kept in
+ * primitive columns indexed by those ids: the endpoints of each edge, and per vertex the ids
+ * of its incident edges. There is no per-edge object besides the edge itself.
+ *
+ *   Graph<V, E> graph = Graphs.directedConcurrentGraph(new MultigraphFactory<>());
+ */
+public class MultigraphFactory<V, E> implements AbstractGraphFactory<V, E> {
+    private static final int COMPACTION_THRESHOLD = 1024;
+    // vertices with at least this many incident edges get a hash index by opposite endpoint
+    private static final int HUB_THRESHOLD = 32;
+    private static final int[] NO_EDGES = new int[0];
+
+    @Override
+    public GraphMap<V, E> graphMap() {
+        return new ColumnarGraphMap();
+    }
+
+    /*
+     * out[v] lists the edges that incidentEdges(v) reports: directed edges leaving v and
+     * bidirectional edges at either end (a loop once). in[v] lists directed edges entering v,
+     * so that removeVertex() can unlink them eagerly. Lists are unordered and removal swaps
+     * the last entry into the freed slot.
+     *
+     * Lookups by endpoint scan out[v], unless v is a hub: then hubs[v] is an open addressing
+     * table of edge ids keyed by their opposite endpoint. Tables are only ever built and
+     * changed by writers, so concurrent readers under a shared lock never write.
+     *
+     * Removed vertices and edges stay in their ObjectIndex as dead ids, which are revived if
+     * the same object is added again and dropped by compact().
+     */
+    private class ColumnarGraphMap implements GraphMap<V, E> {
+        private ObjectIndex<V> vertexIndex = new ObjectIndex<>();
+        private final BitSet liveVertices = new BitSet();
+        private int vertexCount;
+        private int[][] out = new int[16][];
+        private int[] outSize = new int[16];
+        private int[][] in = new int[16][];
+        private int[] inSize = new int[16];
+        private int[][] hubs = new int[16][];
+
+        private ObjectIndex<E> edgeIndex = new ObjectIndex<>();
+        private final BitSet liveEdges = new BitSet();
+        private BitSet bidirectional = new BitSet();
+        private int edgeCount;
+        private int[] edgeSource = new int[16];
+        private int[] edgeTarget = new int[16];
+
+        private int deadIds;
+
+        private final Collection<V> vertices = new IdCollection<>(liveVertices) {
+            @Override
+            V element(int id) {
+                return vertexIndex.get(id);
+            }
+        };
+        private final Collection<E> edges = new IdCollection<>(liveEdges) {
+            @Override
+            E element(int id) {
+                return edgeIndex.get(id);
+            }
+        };
+
+        @Override
+        @Contract(pure = true)
+        public int getVertexCount() {
+            return vertexCount;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public int getEdgeCount() {
+            return edgeCount;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean isVertex(@NotNull V vertex) {
+            return idOf(vertex) >= 0;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean isEdge(@NotNull E edge) {
+            int id = edgeIndex.indexOf(edge);
+            return id >= 0 && liveEdges.get(id);
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean isDirectConnection(@NotNull V vertex1, @NotNull V vertex2) {
+            return firstEdge(vertex1, vertex2) >= 0;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean allowsParallelEdges() {
+            return true;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<V> getVertices() {
+            return vertices;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<E> getEdges() {
+            return edges;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<V> adjacentVertices(@NotNull V vertex) {
+            int id = idOf(vertex);
+            if (id < 0) {
+                return Collections.emptyList();
+            }
+            int size = outSize[id];
+            int[] others = new int[size];
+            for (int i = 0; i < size; i++) {
+                others[i] = opposite(out[id][i], id);
+            }
+            // parallel edges lead to the same vertex more than once
+            Arrays.sort(others);
+            List<V> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || others[i] != others[i - 1]) {
+                    result.add(vertexIndex.get(others[i]));
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+            int id = idOf(vertex);
+            if (id < 0) {
+                return Collections.emptyList();
+            }
+            List<E> result = new ArrayList<>(outSize[id]);
+            for (int i = 0; i < outSize[id]; i++) {
+                result.add(edgeIndex.get(out[id][i]));
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull List<V> incidentVertices(@NotNull E edge) {
+            int id = edgeIndex.indexOf(edge);
+            if (id < 0 || !liveEdges.get(id)) {
+                return Collections.emptyList();
+            }
+            return List.of(vertexIndex.get(edgeSource[id]), vertexIndex.get(edgeTarget[id]));
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+            int id = firstEdge(vertex1, vertex2);
+            return id < 0 ? null : edgeIndex.get(id);
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<E> connectingEdges(@NotNull V vertex1, @NotNull V vertex2) {
+            int id1 = idOf(vertex1);
+            int id2 = idOf(vertex2);
+            if (id1 < 0 || id2 < 0) {
+                return Collections.emptyList();
+            }
+            List<E> result = new ArrayList<>(1);
+            int[] table = hubs[id1];
+            if (table != null) {
+                int mask = table.length - 1;
+                for (int slot = mix(id2) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                    if (opposite(table[slot] - 1, id1) == id2) {
+                        result.add(edgeIndex.get(table[slot] - 1));
+                    }
+                }
+            } else {
+                for (int i = 0; i < outSize[id1]; i++) {
+                    if (opposite(out[id1][i], id1) == id2) {
+                        result.add(edgeIndex.get(out[id1][i]));
+                    }
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        public boolean addVertex(@NotNull V vertex) {
+            int id = vertexIndex.indexOf(vertex);
+            if (id >= 0) {
+                if (liveVertices.get(id)) {
+                    return false;
+                }
+                deadIds--;
+            } else {
+                id = vertexIndex.add(vertex);
+                if (id == out.length) {
+                    int length = id * 2;
+                    out = Arrays.copyOf(out, length);
+                    outSize = Arrays.copyOf(outSize, length);
+                    in = Arrays.copyOf(in, length);
+                    inSize = Arrays.copyOf(inSize, length);
+                    hubs = Arrays.copyOf(hubs, length);
+                }
+            }
+            out[id] = NO_EDGES;
+            in[id] = NO_EDGES;
+            liveVertices.set(id);
+            vertexCount++;
+            return true;
+        }
+
+        @Override
+        public boolean addDirectEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+            if (isEdge(edge)) {
+                return false;
+            }
+            int id = newEdge(edge, vertex1, vertex2);
+            appendOut(edgeSource[id], id);
+            in[edgeTarget[id]] = append(in[edgeTarget[id]], inSize[edgeTarget[id]]++, id);
+            return true;
+        }
+
+        @Override
+        public boolean addBidirectionalEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+            if (isEdge(edge)) {
+                return false;
+            }
+            int id = newEdge(edge, vertex1, vertex2);
+            bidirectional.set(id);
+            appendOut(edgeSource[id], id);
+            if (edgeSource[id] != edgeTarget[id]) {
+                appendOut(edgeTarget[id], id);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean removeVertex(@NotNull V vertex) {
+            int id = idOf(vertex);
+            if (id < 0) {
+                return false;
+            }
+            while (outSize[id] > 0) {
+                unlink(out[id][outSize[id] - 1]);
+            }
+            while (inSize[id] > 0) {
+                unlink(in[id][inSize[id] - 1]);
+            }
+            out[id] = NO_EDGES;
+            in[id] = NO_EDGES;
+            hubs[id] = null;
+            liveVertices.clear(id);
+            vertexCount--;
+            deadIds++;
+            return true;
+        }
+
+        @Override
+        public boolean removeEdge(@NotNull E edge) {
+            int id = edgeIndex.indexOf(edge);
+            if (id < 0 || !liveEdges.get(id)) {
+                return false;
+            }
+            unlink(id);
+            return true;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean needsCompaction() {
+            return deadIds > Math.max(COMPACTION_THRESHOLD, (vertexIndex.size() + edgeIndex.size()) >> 3);
+        }
+
+        /*
+         * Renumbers the live vertices and edges densely, dropping dead ids from both indexes
+         * and trimming every list to its size.
+         */
+        @Override
+        public void compact() {
+            if (deadIds == 0) {
+                return;
+            }
+            int[] vertexIds = new int[vertexIndex.size()];
+            ObjectIndex<V> newVertexIndex = new ObjectIndex<>(vertexCount);
+            for (int id = liveVertices.nextSetBit(0); id >= 0; id = liveVertices.nextSetBit(id + 1)) {
+                vertexIds[id] = newVertexIndex.add(vertexIndex.get(id));
+            }
+            int[] edgeIds = new int[edgeIndex.size()];
+            ObjectIndex<E> newEdgeIndex = new ObjectIndex<>(edgeCount);
+            int[] newSource = new int[Math.max(edgeCount, 16)];
+            int[] newTarget = new int[newSource.length];
+            BitSet newBidirectional = new BitSet();
+            for (int id = liveEdges.nextSetBit(0); id >= 0; id = liveEdges.nextSetBit(id + 1)) {
+                int newId = newEdgeIndex.add(edgeIndex.get(id));
+                edgeIds[id] = newId;
+                newSource[newId] = vertexIds[edgeSource[id]];
+                newTarget[newId] = vertexIds[edgeTarget[id]];
+                if (bidirectional.get(id)) {
+                    newBidirectional.set(newId);
+                }
+            }
+
+            int length = Math.max(vertexCount, 16);
+            int[][] newOut = new int[length][];
+            int[] newOutSize = new int[length];
+            int[][] newIn = new int[length][];
+            int[] newInSize = new int[length];
+            for (int id = liveVertices.nextSetBit(0); id >= 0; id = liveVertices.nextSetBit(id + 1)) {
+                int newId = vertexIds[id];
+                newOut[newId] = remap(out[id], outSize[id], edgeIds);
+                newOutSize[newId] = outSize[id];
+                newIn[newId] = remap(in[id], inSize[id], edgeIds);
+                newInSize[newId] = inSize[id];
+            }
+
+            vertexIndex = newVertexIndex;
+            out = newOut;
+            outSize = newOutSize;
+            in = newIn;
+            inSize = newInSize;
+            hubs = new int[length][];
+            edgeIndex = newEdgeIndex;
+            edgeSource = newSource;
+            edgeTarget = newTarget;
+            bidirectional = newBidirectional;
+            for (int id = 0; id < vertexCount; id++) {
+                if (outSize[id] >= HUB_THRESHOLD) {
+                    buildHub(id);
+                }
+            }
+            liveVertices.clear();
+            liveVertices.set(0, vertexCount);
+            liveEdges.clear();
+            liveEdges.set(0, edgeCount);
+            deadIds = 0;
+        }
+
+        private int idOf(@NotNull V vertex) {
+            int id = vertexIndex.indexOf(vertex);
+            return id >= 0 && liveVertices.get(id) ? id : -1;
+        }
+
+        private int opposite(int edge, int vertex) {
+            return edgeSource[edge] == vertex ? edgeTarget[edge] : edgeSource[edge];
+        }
+
+        private int firstEdge(@NotNull V vertex1, @NotNull V vertex2) {
+            int id1 = idOf(vertex1);
+            int id2 = idOf(vertex2);
+            if (id1 < 0 || id2 < 0) {
+                return -1;
+            }
+            int[] table = hubs[id1];
+            if (table != null) {
+                int mask = table.length - 1;
+                for (int slot = mix(id2) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                    if (opposite(table[slot] - 1, id1) == id2) {
+                        return table[slot] - 1;
+                    }
+                }
+                return -1;
+            }
+            for (int i = 0; i < outSize[id1]; i++) {
+                if (opposite(out[id1][i], id1) == id2) {
+                    return out[id1][i];
+                }
+            }
+            return -1;
+        }
+
+        /*
+         * Allocates (or revives) the edge id and fills its columns; both vertices are added
+         * if needed.
+         */
+        private int newEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+            addVertex(vertex1);
+            addVertex(vertex2);
+            int id = edgeIndex.indexOf(edge);
+            if (id >= 0) {
+                deadIds--;
+            } else {
+                id = edgeIndex.add(edge);
+                if (id == edgeSource.length) {
+                    edgeSource = Arrays.copyOf(edgeSource, id * 2);
+                    edgeTarget = Arrays.copyOf(edgeTarget, id * 2);
+                }
+            }
+            edgeSource[id] = vertexIndex.indexOf(vertex1);
+            edgeTarget[id] = vertexIndex.indexOf(vertex2);
+            bidirectional.clear(id);
+            liveEdges.set(id);
+            edgeCount++;
+            return id;
+        }
+
+        private void unlink(int edge) {
+            int source = edgeSource[edge];
+            int target = edgeTarget[edge];
+            removeOut(source, edge);
+            if (!bidirectional.get(edge)) {
+                inSize[target] = remove(in[target], inSize[target], edge);
+            } else if (source != target) {
+                removeOut(target, edge);
+            }
+            liveEdges.clear(edge);
+            edgeCount--;
+            deadIds++;
+        }
+
+        private void appendOut(int vertex, int edge) {
+            out[vertex] = append(out[vertex], outSize[vertex]++, edge);
+            int[] table = hubs[vertex];
+            if (table != null && outSize[vertex] * 2 <= table.length) {
+                insert(table, mix(opposite(edge, vertex)), edge);
+            } else if (outSize[vertex] >= HUB_THRESHOLD) {
+                buildHub(vertex);
+            }
+        }
+
+        private void removeOut(int vertex, int edge) {
+            outSize[vertex] = remove(out[vertex], outSize[vertex], edge);
+            int[] table = hubs[vertex];
+            if (table == null) {
+                return;
+            }
+            if (outSize[vertex] < HUB_THRESHOLD) {
+                hubs[vertex] = null;
+                return;
+            }
+            // backward shift deletion keeps every probe sequence unbroken
+            int mask = table.length - 1;
+            int hole = mix(opposite(edge, vertex)) & mask;
+            while (table[hole] != edge + 1) {
+                hole = (hole + 1) & mask;
+            }
+            for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+                int home = mix(opposite(table[next] - 1, vertex)) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[hole] = table[next];
+                    hole = next;
+                }
+            }
+            table[hole] = 0;
+        }
+
+        private void buildHub(int vertex) {
+            int size = outSize[vertex];
+            int capacity = 16;
+            while (capacity < size * 4) {
+                capacity <<= 1;
+            }
+            int[] table = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                insert(table, mix(opposite(out[vertex][i], vertex)), out[vertex][i]);
+            }
+            hubs[vertex] = table;
+        }
+    }
+
+    /*
+     * Live view of the objects whose ids are set in `live`.
+     */
+    private abstract static class IdCollection<T> extends AbstractCollection<T> {
+        private final BitSet live;
+
+        private IdCollection(@NotNull BitSet live) {
+            this.live = live;
+        }
+
+        abstract T element(int id);
+
+        @Override
+        public @NotNull Iterator<T> iterator() {
+            return new Iterator<>() {
+                private int next = live.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public T next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    T result = element(next);
+                    next = live.nextSetBit(next + 1);
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return live.cardinality();
+        }
+    }
+
+    private static @NotNull int[] append(@NotNull int[] list, int size, int value) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, size * 2));
+        }
+        list[size] = value;
+        return list;
+    }
+
+    /*
+     * Swap-removes `value` from list[0 .. size) and returns the new size.
+     */
+    private static int remove(@NotNull int[] list, int size, int value) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (list[i] == value) {
+                list[i] = list[size - 1];
+                return size - 1;
+            }
+        }
+        return size;
+    }
+
+    private static @NotNull int[] remap(@NotNull int[] list, int size, @NotNull int[] ids) {
+        int[] result = size == 0 ? NO_EDGES : new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ids[list[i]];
+        }
+        return result;
+    }
+
+    private static void insert(@NotNull int[] table, int hash, int edge) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = edge + 1;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
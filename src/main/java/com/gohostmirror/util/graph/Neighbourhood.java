@@ -0,0 +1,182 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+ * Vertices within a hop limit of a start vertex, following edge direction in directed graphs,
+ * with their hop distances in parallel arrays. Vertices are ordered by distance, the start
+ * vertex first at distance 0. If requested, the edges between the returned vertices are
+ * kept as well.
+ */
+public final class Neighbourhood<V, E> {
+    private static final Neighbourhood<?, ?> EMPTY =
+            new Neighbourhood<>(new Object[0], new int[0], 0, new Object[0], 0, false);
+
+    private final Object[] vertices;
+    private final int[] distances;
+    private final int size;
+    private final Object[] edges;
+    private final int edgeCount;
+    private final boolean truncated;
+
+    Neighbourhood(@NotNull Object[] vertices, @NotNull int[] distances, int size,
+                  @NotNull Object[] edges, int edgeCount, boolean truncated) {
+        this.vertices = vertices;
+        this.distances = distances;
+        this.size = size;
+        this.edges = edges;
+        this.edgeCount = edgeCount;
+        this.truncated = truncated;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V, E> @NotNull Neighbourhood<V, E> empty() {
+        return (Neighbourhood<V, E>) EMPTY;
+    }
+
+    /*
+     * Level-synchronous BFS from `start`, which the caller has checked to exist. Stops after
+     * `maxHops` levels, or as soon as `limit` vertices are collected. `opposite` maps
+     * (vertex, incident edge) to the other endpoint, or to null to skip the edge.
+     */
+    static <V, E> @NotNull Neighbourhood<V, E> collect(@NotNull V start, int maxHops, int limit, boolean withEdges,
+                                                       boolean directed,
+                                                       @NotNull Function<V, ? extends Collection<E>> incidentEdges,
+                                                       @NotNull BiFunction<V, E, V> opposite) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("maxHops must not be negative: " + maxHops);
+        }
+        if (limit < 1) {
+            return empty();
+        }
+        ObjectIndex<V> index = new ObjectIndex<>(Math.min(limit, 1024));
+        int[] distances = new int[Math.min(limit, 1024)];
+        index.add(start);
+        boolean truncated = false;
+        int levelStart = 0;
+        for (int hop = 1; hop <= maxHops && levelStart < index.size() && !truncated; hop++) {
+            int levelEnd = index.size();
+            for (int i = levelStart; i < levelEnd && !truncated; i++) {
+                V vertex = index.get(i);
+                for (E edge : incidentEdges.apply(vertex)) {
+                    V adjacent = opposite.apply(vertex, edge);
+                    if (adjacent == null || index.indexOf(adjacent) >= 0) {
+                        continue;
+                    }
+                    if (index.size() == limit) {
+                        truncated = true;
+                        break;
+                    }
+                    if (index.size() == distances.length) {
+                        distances = Arrays.copyOf(distances, distances.length * 2);
+                    }
+                    distances[index.size()] = hop;
+                    index.add(adjacent);
+                }
+            }
+            levelStart = levelEnd;
+        }
+
+        int size = index.size();
+        Object[] vertices = new Object[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = index.get(i);
+        }
+        Object[] edges = new Object[0];
+        int edgeCount = 0;
+        if (withEdges) {
+            edges = new Object[Math.max(size, 16)];
+            for (int i = 0; i < size; i++) {
+                V vertex = index.get(i);
+                for (E edge : incidentEdges.apply(vertex)) {
+                    V adjacent = opposite.apply(vertex, edge);
+                    int j = adjacent == null ? -1 : index.indexOf(adjacent);
+                    // undirected edges are listed by both endpoints
+                    if (j < 0 || (!directed && j < i)) {
+                        continue;
+                    }
+                    if (edgeCount == edges.length) {
+                        edges = Arrays.copyOf(edges, edgeCount * 2);
+                    }
+                    edges[edgeCount++] = edge;
+                }
+            }
+        }
+        return new Neighbourhood<>(vertices, Arrays.copyOf(distances, size), size, edges, edgeCount, truncated);
+    }
+
+    @Contract(pure = true)
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Contract(pure = true)
+    public @NotNull V vertex(int index) {
+        return (V) vertices[index];
+    }
+
+    @Contract(pure = true)
+    public int distance(int index) {
+        return distances[index];
+    }
+
+    @Contract(pure = true)
+    public @NotNull List<V> vertices() {
+        return new ArrayView<>(vertices, size);
+    }
+
+    @Contract(pure = true)
+    public @NotNull int[] distances() {
+        return distances.clone();
+    }
+
+    /*
+     * Edges with both endpoints in the neighbourhood; empty unless requested.
+     */
+    @Contract(pure = true)
+    public @NotNull List<E> edges() {
+        return new ArrayView<>(edges, edgeCount);
+    }
+
+    /*
+     * True if the limit cut the result short: more vertices lie within the hop limit.
+     */
+    @Contract(pure = true)
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private static final class ArrayView<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] array;
+        private final int size;
+
+        private ArrayView(@NotNull Object[] array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return (T) array[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/*
+ * Open addressing object -> dense id index. Ids are assigned in insertion order and the
+ * table stores (id + 1), so there is no boxing and no per-entry node object.
+ */
+final class ObjectIndex<T> {
+    private static final int EMPTY = 0;
+
+    private Object[] keys;
+    private int[] table;
+    private int size;
+
+    ObjectIndex() {
+        this(16);
+    }
+
+    ObjectIndex(int expectedSize) {
+        keys = new Object[Math.max(expectedSize, 4)];
+        table = new int[tableSize(expectedSize)];
+    }
+
+    @Contract(pure = true)
+    int size() {
+        return size;
+    }
+
+    @Contract(pure = true)
+    int indexOf(@NotNull Object key) {
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (keys[entry - 1].equals(key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Contract(pure = true)
+    T get(int id) {
+        return (T) keys[id];
+    }
+
+    /*
+     * Returns the id of the key, adding it when absent.
+     */
+    int add(@NotNull T key) {
+        int id = indexOf(key);
+        if (id >= 0) {
+            return id;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        keys[size] = key;
+        insert(size);
+        return size++;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            insert(id);
+        }
+    }
+
+    private void insert(int id) {
+        int mask = table.length - 1;
+        int slot = hash(keys[id]) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    private static int hash(@NotNull Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,295 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/*
+ * Fixed number of in-memory frames over a file of equally sized int pages, evicted with the
+ * CLOCK algorithm: every access sets the frame's reference bit, and the hand clears bits until
+ * it finds a frame that was not touched since its last pass. Dirty frames are written back on
+ * eviction; pages are allocated from a free list before the file is extended.
+ *
+ * All frame access is serialized on this object. Prefetched pages are read outside the lock
+ * on a daemon thread and installed without their reference bit, so a read-ahead that turns out
+ * useless is the first thing evicted. Read-ahead is best effort: a page already cached or
+ * queued is not requested again, requests are dropped while MAX_PENDING_PREFETCHES batches
+ * are waiting, and after close() they are ignored.
+ */
+final class PageCache implements Closeable {
+    private static final int NO_PAGE = -1;
+    private static final int MAX_PENDING_PREFETCHES = 4;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final IntBuffer[] frames;
+    private final ByteBuffer[] frameBytes;
+    private final int[] framePages;
+    private final boolean[] referenced;
+    private final boolean[] dirty;
+    private final Map<Integer, Integer> pageFrames = new HashMap<>();
+    private final ExecutorService prefetcher;
+    private final Set<Integer> prefetching = new HashSet<>();
+    private int pendingPrefetches;
+
+    private int hand;
+    private int pageCount;
+    private int[] freePages = new int[16];
+    private int freeCount;
+    private long writeBacks;
+    private long[] writtenBackAt = new long[16];
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long prefetches;
+
+    PageCache(@NotNull FileChannel channel, int pageSize, int capacity) {
+        if (pageSize < 64 || pageSize % 8 != 0) {
+            throw new IllegalArgumentException("pageSize must be a multiple of 8 and at least 64: " + pageSize);
+        }
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+        }
+        this.channel = channel;
+        this.pageSize = pageSize;
+        frames = new IntBuffer[capacity];
+        frameBytes = new ByteBuffer[capacity];
+        framePages = new int[capacity];
+        referenced = new boolean[capacity];
+        dirty = new boolean[capacity];
+        Arrays.fill(framePages, NO_PAGE);
+        for (int i = 0; i < capacity; i++) {
+            frameBytes[i] = ByteBuffer.allocate(pageSize);
+            frames[i] = frameBytes[i].asIntBuffer();
+        }
+        prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "page-cache-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Contract(pure = true)
+    int intsPerPage() {
+        return pageSize / Integer.BYTES;
+    }
+
+    /*
+     * Returns a zero-filled page that is cached (dirty) without being read from disk.
+     */
+    synchronized int allocate() {
+        int page = freeCount > 0 ? freePages[--freeCount] : pageCount++;
+        // a prefetch may have cached the page while it was free
+        Integer cached = pageFrames.get(page);
+        int frame = cached != null ? cached : victim();
+        ByteBuffer bytes = frameBytes[frame];
+        Arrays.fill(bytes.array(), (byte) 0);
+        install(frame, page);
+        dirty[frame] = true;
+        return page;
+    }
+
+    /*
+     * Drops the page without writing it back and makes it available to allocate().
+     */
+    synchronized void free(int page) {
+        Integer frame = pageFrames.remove(page);
+        if (frame != null) {
+            framePages[frame] = NO_PAGE;
+            referenced[frame] = false;
+            dirty[frame] = false;
+        }
+        if (freeCount == freePages.length) {
+            freePages = Arrays.copyOf(freePages, freeCount * 2);
+        }
+        freePages[freeCount++] = page;
+    }
+
+    synchronized void read(int page, int from, @NotNull int[] target, int offset, int length) {
+        IntBuffer frame = frames[frameOf(page)];
+        frame.position(from);
+        frame.get(target, offset, length);
+    }
+
+    synchronized void write(int page, int index, int value) {
+        int frame = frameOf(page);
+        frames[frame].put(index, value);
+        dirty[frame] = true;
+    }
+
+    /*
+     * Loads the given pages in the background, in file order, unless they are already cached
+     * or queued.
+     */
+    void prefetch(@NotNull int[] pages, int count) {
+        int[] wanted = new int[count];
+        int size = 0;
+        synchronized (this) {
+            if (pendingPrefetches >= MAX_PENDING_PREFETCHES) {
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                if (!pageFrames.containsKey(pages[i]) && prefetching.add(pages[i])) {
+                    wanted[size++] = pages[i];
+                }
+            }
+            if (size == 0) {
+                return;
+            }
+            pendingPrefetches++;
+        }
+        int[] sorted = Arrays.copyOf(wanted, size);
+        Arrays.sort(sorted);
+        try {
+            prefetcher.execute(() -> {
+                try {
+                    load(sorted);
+                } finally {
+                    release(sorted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // closed: there is nothing left to read into
+            release(sorted);
+        }
+    }
+
+    synchronized @NotNull PageCacheStats stats() {
+        return new PageCacheStats(hits, misses, evictions, prefetches);
+    }
+
+    @Override
+    public void close() throws IOException {
+        prefetcher.shutdownNow();
+        channel.close();
+    }
+
+    private void load(@NotNull int[] sorted) {
+        ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+        for (int page : sorted) {
+            long writeBacksBefore;
+            synchronized (this) {
+                if (pageFrames.containsKey(page)) {
+                    continue;
+                }
+                writeBacksBefore = writeBacks;
+            }
+            buffer.clear();
+            try {
+                readPage(page, buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                continue;
+            }
+            synchronized (this) {
+                // a write-back of this page since the read started may have made what we read stale
+                if (pageFrames.containsKey(page) || page >= pageCount || writtenBackAt[page] > writeBacksBefore) {
+                    continue;
+                }
+                int frame = victim();
+                System.arraycopy(buffer.array(), 0, frameBytes[frame].array(), 0, pageSize);
+                install(frame, page);
+                referenced[frame] = false;
+                prefetches++;
+            }
+        }
+    }
+
+    private synchronized void release(@NotNull int[] pages) {
+        for (int page : pages) {
+            prefetching.remove(page);
+        }
+        pendingPrefetches--;
+    }
+
+    private int frameOf(int page) {
+        Integer frame = pageFrames.get(page);
+        if (frame != null) {
+            hits++;
+            referenced[frame] = true;
+            return frame;
+        }
+        misses++;
+        int victim = victim();
+        ByteBuffer bytes = frameBytes[victim];
+        bytes.clear();
+        try {
+            readPage(page, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        install(victim, page);
+        return victim;
+    }
+
+    private int victim() {
+        while (true) {
+            int frame = hand;
+            hand = (hand + 1) % frames.length;
+            if (framePages[frame] == NO_PAGE) {
+                return frame;
+            }
+            if (referenced[frame]) {
+                referenced[frame] = false;
+                continue;
+            }
+            if (dirty[frame]) {
+                ByteBuffer bytes = frameBytes[frame];
+                bytes.clear();
+                try {
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes, (long) framePages[frame] * pageSize + bytes.position());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                dirty[frame] = false;
+                int page = framePages[frame];
+                if (page >= writtenBackAt.length) {
+                    writtenBackAt = Arrays.copyOf(writtenBackAt, Math.max(page + 1, writtenBackAt.length * 2));
+                }
+                writtenBackAt[page] = ++writeBacks;
+            }
+            pageFrames.remove(framePages[frame]);
+            framePages[frame] = NO_PAGE;
+            evictions++;
+            return frame;
+        }
+    }
+
+    private void install(int frame, int page) {
+        framePages[frame] = page;
+        referenced[frame] = true;
+        pageFrames.put(page, frame);
+    }
+
+    /*
+     * Reads a whole page; the part beyond the end of the file reads as zeros.
+     */
+    private void readPage(int page, @NotNull ByteBuffer buffer) throws IOException {
+        long position = (long) page * pageSize;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                Arrays.fill(buffer.array(), buffer.position(), pageSize, (byte) 0);
+                break;
+            }
+        }
+    }
+}
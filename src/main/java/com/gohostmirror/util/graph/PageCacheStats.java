@@ -0,0 +1,53 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+
+/*
+ * Counters of a page cache at one point in time. Prefetched pages are not counted as misses;
+ * a later access to one is a hit.
+ */
+public final class PageCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long prefetches;
+
+    PageCacheStats(long hits, long misses, long evictions, long prefetches) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.prefetches = prefetches;
+    }
+
+    @Contract(pure = true)
+    public long hits() {
+        return hits;
+    }
+
+    @Contract(pure = true)
+    public long misses() {
+        return misses;
+    }
+
+    @Contract(pure = true)
+    public long evictions() {
+        return evictions;
+    }
+
+    @Contract(pure = true)
+    public long prefetches() {
+        return prefetches;
+    }
+
+    @Contract(pure = true)
+    public double hitRate() {
+        long accesses = hits + misses;
+        return accesses == 0 ? 0 : (double) hits / accesses;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCacheStats{hits=%d, misses=%d, evictions=%d, prefetches=%d, hitRate=%.3f}",
+                hits, misses, evictions, prefetches, hitRate());
+    }
+}
@@ -0,0 +1,531 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/*
+ * Graph maps whose adjacency lists live in a scratch file under `directory`, in fixed-size
+ * pages behind one bounded PageCache shared by every map this factory creates (all shards of
+ * a sharded graph share the budget). Vertex and edge objects, and the page numbers of each
+ * vertex's list, stay on the heap; only the (neighbour, edge) entries are paged.
+ *
+ * The file is not a persistence format: it is deleted on close(). Wrap the graph in a
+ * DurableGraph for durability.
+ *
+ *   PagedGraphFactory<V, E> factory = PagedGraphFactory.open(directory, 4096);
+ *   Graph<V, E> graph = Graphs.directedConcurrentGraph(factory);
+ */
+public final class PagedGraphFactory<V, E> implements AbstractGraphFactory<V, E>, Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_READ_AHEAD = 32;
+
+    private static final int COMPACTION_THRESHOLD = 1024;
+    private static final int NO_VERTEX = -1;
+
+    private final PageCache cache;
+    private final int entriesPerPage;
+    private final int readAhead;
+
+    private PagedGraphFactory(@NotNull PageCache cache, int readAhead) {
+        this.cache = cache;
+        this.entriesPerPage = cache.intsPerPage() / 2;
+        this.readAhead = readAhead;
+    }
+
+    public static <V, E> @NotNull PagedGraphFactory<V, E> open(@NotNull Path directory, int cachePages) throws IOException {
+        return open(directory, DEFAULT_PAGE_SIZE, cachePages, DEFAULT_READ_AHEAD);
+    }
+
+    /*
+     * `cachePages` bounds the memory used for adjacency to cachePages * pageSize bytes.
+     * `readAhead` is how many neighbour lists adjacentVertices() prefetches (0 disables it).
+     */
+    public static <V, E> @NotNull PagedGraphFactory<V, E> open(@NotNull Path directory, int pageSize,
+                                                              int cachePages, int readAhead) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "adjacency-", ".pages");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        try {
+            return new PagedGraphFactory<>(new PageCache(channel, pageSize, cachePages), Math.max(readAhead, 0));
+        } catch (IllegalArgumentException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public GraphMap<V, E> graphMap() {
+        return new PagedGraphMap();
+    }
+
+    @Contract(pure = true)
+    public @NotNull PageCacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cache.close();
+    }
+
+    /*
+     * Each vertex has a dense id and a list of (neighbour id, edge id) entries stored in the
+     * pages listed in chains[id], entry i at page i / entriesPerPage. Lookups by neighbour scan
+     * the list, so isDirectConnection() and getEdge() cost O(degree) page reads.
+     *
+     * Removal swaps the last entry into the freed slot. As in MixedGraphFactory, direct edges
+     * pointing at a removed vertex are not indexed; the vertex id becomes a tombstone that reads
+     * skip and compact() sweeps. A removed vertex that is added again gets a fresh id; its old
+     * id is released early if every dead entry pointing at it is dropped by edge reuse.
+     */
+    private class PagedGraphMap implements GraphMap<V, E> {
+        private final Map<V, Integer> vertexIds = new HashMap<>();
+        private final Map<E, Integer> edgeIds = new HashMap<>();
+        private final BitSet tombstones = new BitSet();
+        private final BitSet bidirectional = new BitSet();
+        private final Set<V> verticesKeySet = Collections.unmodifiableSet(vertexIds.keySet());
+        private final Set<E> edgesKeySet = Collections.unmodifiableSet(edgeIds.keySet());
+
+        private Object[] vertexAt = new Object[16];
+        private int[][] chains = new int[16][];
+        private int[] degree = new int[16];
+        private int[] inDegree = new int[16];
+        private int vertexCount;
+        private int[] freeVertices = new int[16];
+        private int freeVertexCount;
+
+        private Object[] edgeAt = new Object[16];
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int edgeCount;
+        private int[] freeEdges = new int[16];
+        private int freeEdgeCount;
+
+        private int deadEdges;
+
+        @Override
+        @Contract(pure = true)
+        public int getVertexCount() {
+            return vertexIds.size();
+        }
+
+        @Override
+        @Contract(pure = true)
+        public int getEdgeCount() {
+            return edgeIds.size() - deadEdges;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean isVertex(@NotNull V vertex) {
+            return vertexIds.containsKey(vertex);
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean isEdge(@NotNull E edge) {
+            Integer id = edgeIds.get(edge);
+            return id != null && !tombstones.get(edgeTo[id]);
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean isDirectConnection(@NotNull V vertex1, @NotNull V vertex2) {
+            return getEdge(vertex1, vertex2) != null;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<V> getVertices() {
+            return verticesKeySet;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public @NotNull Collection<E> getEdges() {
+            if (deadEdges == 0) {
+                return edgesKeySet;
+            }
+            List<E> result = new ArrayList<>(getEdgeCount());
+            for (E edge : edgeIds.keySet()) {
+                if (isEdge(edge)) {
+                    result.add(edge);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        @Contract(pure = true)
+        @SuppressWarnings("unchecked")
+        public @NotNull Collection<V> adjacentVertices(@NotNull V vertex) {
+            int id = idOf(vertex);
+            if (id == NO_VERTEX) {
+                return Collections.emptySet();
+            }
+            int[] entries = entries(id);
+            List<V> result = new ArrayList<>(degree[id]);
+            int[] pages = readAhead > 0 ? new int[readAhead] : null;
+            int prefetch = 0;
+            for (int i = 0; i < entries.length; i += 2) {
+                int target = entries[i];
+                if (tombstones.get(target)) {
+                    continue;
+                }
+                result.add((V) vertexAt[target]);
+                // a BFS expands these next, so start loading the head of each list now
+                if (prefetch < readAhead && degree[target] > 0) {
+                    pages[prefetch++] = chains[target][0];
+                }
+            }
+            if (prefetch > 0) {
+                cache.prefetch(pages, prefetch);
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        @Contract(pure = true)
+        @SuppressWarnings("unchecked")
+        public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+            int id = idOf(vertex);
+            if (id == NO_VERTEX) {
+                return Collections.emptyList();
+            }
+            int[] entries = entries(id);
+            List<E> result = new ArrayList<>(degree[id]);
+            for (int i = 0; i < entries.length; i += 2) {
+                if (!tombstones.get(entries[i])) {
+                    result.add((E) edgeAt[entries[i + 1]]);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        @Contract(pure = true)
+        @SuppressWarnings("unchecked")
+        public @NotNull List<V> incidentVertices(@NotNull E edge) {
+            Integer id = edgeIds.get(edge);
+            if (id == null || tombstones.get(edgeTo[id])) {
+                return Collections.emptyList();
+            }
+            return List.of((V) vertexAt[edgeFrom[id]], (V) vertexAt[edgeTo[id]]);
+        }
+
+        @Override
+        @Contract(pure = true)
+        @SuppressWarnings("unchecked")
+        public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+            int id1 = idOf(vertex1);
+            int id2 = idOf(vertex2);
+            if (id1 == NO_VERTEX || id2 == NO_VERTEX) {
+                return null;
+            }
+            int index = find(id1, id2, 0);
+            return index < 0 ? null : (E) edgeAt[entry(id1, index, 1)];
+        }
+
+        @Override
+        public boolean addVertex(@NotNull V vertex) {
+            if (isVertex(vertex)) {
+                return false;
+            }
+            int id;
+            if (freeVertexCount > 0) {
+                id = freeVertices[--freeVertexCount];
+            } else {
+                id = vertexCount++;
+                if (id == vertexAt.length) {
+                    int length = id * 2;
+                    vertexAt = Arrays.copyOf(vertexAt, length);
+                    chains = Arrays.copyOf(chains, length);
+                    degree = Arrays.copyOf(degree, length);
+                    inDegree = Arrays.copyOf(inDegree, length);
+                }
+            }
+            vertexAt[id] = vertex;
+            chains[id] = new int[0];
+            degree[id] = 0;
+            inDegree[id] = 0;
+            vertexIds.put(vertex, id);
+            return true;
+        }
+
+        @Override
+        public boolean addDirectEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+            dropIfDead(edge);
+            if (isEdge(edge) || isDirectConnection(vertex1, vertex2)) {
+                return false;
+            }
+
+            addVertex(vertex1);
+            addVertex(vertex2);
+            int id1 = vertexIds.get(vertex1);
+            int id2 = vertexIds.get(vertex2);
+            int edgeId = newEdge(edge, id1, id2);
+            append(id1, id2, edgeId);
+            inDegree[id2]++;
+            return true;
+        }
+
+        @Override
+        public boolean addBidirectionalEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+            dropIfDead(edge);
+            if (isEdge(edge)
+                    || isDirectConnection(vertex1, vertex2)
+                    || isDirectConnection(vertex2, vertex1)) {
+                return false;
+            }
+
+            addVertex(vertex1);
+            addVertex(vertex2);
+            int id1 = vertexIds.get(vertex1);
+            int id2 = vertexIds.get(vertex2);
+            int edgeId = newEdge(edge, id1, id2);
+            bidirectional.set(edgeId);
+            append(id1, id2, edgeId);
+            if (id1 != id2) {
+                append(id2, id1, edgeId);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean removeVertex(@NotNull V vertex) {
+            Integer boxed = vertexIds.remove(vertex);
+            if (boxed == null) {
+                return false;
+            }
+            int id = boxed;
+            int[] entries = entries(id);
+            for (int i = 0; i < entries.length; i += 2) {
+                int target = entries[i];
+                int edgeId = entries[i + 1];
+                boolean both = bidirectional.get(edgeId);
+                freeEdge(edgeId);
+                if (tombstones.get(target)) {
+                    deadEdges--;
+                    releaseTombstone(target);
+                } else if (target == id) {
+                    if (!both) {
+                        inDegree[id]--;
+                    }
+                } else if (both) {
+                    removeEntry(target, findEdge(target, edgeId));
+                } else {
+                    inDegree[target]--;
+                }
+            }
+            for (int page : chains[id]) {
+                cache.free(page);
+            }
+            chains[id] = new int[0];
+            degree[id] = 0;
+            vertexAt[id] = null;
+            if (inDegree[id] > 0) {
+                tombstones.set(id);
+                deadEdges += inDegree[id];
+            } else {
+                freeVertex(id);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean removeEdge(@NotNull E edge) {
+            Integer boxed = edgeIds.get(edge);
+            if (boxed == null || tombstones.get(edgeTo[boxed])) {
+                return false;
+            }
+            int edgeId = boxed;
+            int id1 = edgeFrom[edgeId];
+            int id2 = edgeTo[edgeId];
+            removeEntry(id1, findEdge(id1, edgeId));
+            if (!bidirectional.get(edgeId)) {
+                inDegree[id2]--;
+            } else if (id1 != id2) {
+                removeEntry(id2, findEdge(id2, edgeId));
+            }
+            freeEdge(edgeId);
+            return true;
+        }
+
+        @Override
+        @Contract(pure = true)
+        public boolean needsCompaction() {
+            return deadEdges > Math.max(COMPACTION_THRESHOLD, edgeIds.size() >> 3);
+        }
+
+        /*
+         * Removed entries are already reclaimed in place, so this only sweeps entries pointing
+         * at tombstones and releases the tombstoned ids.
+         */
+        @Override
+        public void compact() {
+            if (tombstones.isEmpty()) {
+                return;
+            }
+            for (int id : vertexIds.values()) {
+                for (int index = 0; index < degree[id]; ) {
+                    int target = entry(id, index, 0);
+                    if (tombstones.get(target)) {
+                        freeEdge(entry(id, index, 1));
+                        removeEntry(id, index);
+                    } else {
+                        index++;
+                    }
+                }
+            }
+            for (int id = tombstones.nextSetBit(0); id >= 0; id = tombstones.nextSetBit(id + 1)) {
+                freeVertex(id);
+            }
+            tombstones.clear();
+            deadEdges = 0;
+        }
+
+        private int idOf(@NotNull V vertex) {
+            Integer id = vertexIds.get(vertex);
+            return id == null ? NO_VERTEX : id;
+        }
+
+        /*
+         * Discards the entry of a reused edge that still points at a removed vertex, instead of
+         * sweeping the whole file with compact().
+         */
+        private void dropIfDead(@NotNull E edge) {
+            Integer boxed = edgeIds.get(edge);
+            if (boxed != null && tombstones.get(edgeTo[boxed])) {
+                int edgeId = boxed;
+                int id1 = edgeFrom[edgeId];
+                int id2 = edgeTo[edgeId];
+                removeEntry(id1, findEdge(id1, edgeId));
+                freeEdge(edgeId);
+                deadEdges--;
+                releaseTombstone(id2);
+            }
+        }
+
+        /*
+         * Frees a removed vertex's id once no entry points at it any more.
+         */
+        private void releaseTombstone(int id) {
+            if (--inDegree[id] == 0) {
+                tombstones.clear(id);
+                freeVertex(id);
+            }
+        }
+
+        /*
+         * Reads the whole list of `id` as consecutive (neighbour, edge) pairs.
+         */
+        private @NotNull int[] entries(int id) {
+            int[] result = new int[degree[id] * 2];
+            int[] chain = chains[id];
+            for (int p = 0, offset = 0; offset < result.length; p++) {
+                int length = Math.min(entriesPerPage * 2, result.length - offset);
+                cache.read(chain[p], 0, result, offset, length);
+                offset += length;
+            }
+            return result;
+        }
+
+        private int entry(int id, int index, int field) {
+            int[] value = new int[1];
+            cache.read(chains[id][index / entriesPerPage], (index % entriesPerPage) * 2 + field, value, 0, 1);
+            return value[0];
+        }
+
+        private int find(int id, int target, int field) {
+            int[] entries = entries(id);
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i + field] == target) {
+                    return i / 2;
+                }
+            }
+            return -1;
+        }
+
+        private int findEdge(int id, int edgeId) {
+            return find(id, edgeId, 1);
+        }
+
+        private void append(int id, int target, int edgeId) {
+            int index = degree[id];
+            if (index % entriesPerPage == 0) {
+                int[] chain = chains[id];
+                chain = Arrays.copyOf(chain, chain.length + 1);
+                chain[chain.length - 1] = cache.allocate();
+                chains[id] = chain;
+            }
+            int page = chains[id][index / entriesPerPage];
+            int slot = (index % entriesPerPage) * 2;
+            cache.write(page, slot, target);
+            cache.write(page, slot + 1, edgeId);
+            degree[id]++;
+        }
+
+        private void removeEntry(int id, int index) {
+            int last = degree[id] - 1;
+            if (index != last) {
+                int page = chains[id][index / entriesPerPage];
+                int slot = (index % entriesPerPage) * 2;
+                cache.write(page, slot, entry(id, last, 0));
+                cache.write(page, slot + 1, entry(id, last, 1));
+            }
+            degree[id] = last;
+            if (last % entriesPerPage == 0) {
+                int[] chain = chains[id];
+                cache.free(chain[chain.length - 1]);
+                chains[id] = Arrays.copyOf(chain, chain.length - 1);
+            }
+        }
+
+        private int newEdge(@NotNull E edge, int id1, int id2) {
+            int edgeId;
+            if (freeEdgeCount > 0) {
+                edgeId = freeEdges[--freeEdgeCount];
+            } else {
+                edgeId = edgeCount++;
+                if (edgeId == edgeAt.length) {
+                    int length = edgeId * 2;
+                    edgeAt = Arrays.copyOf(edgeAt, length);
+                    edgeFrom = Arrays.copyOf(edgeFrom, length);
+                    edgeTo = Arrays.copyOf(edgeTo, length);
+                }
+            }
+            edgeAt[edgeId] = edge;
+            edgeFrom[edgeId] = id1;
+            edgeTo[edgeId] = id2;
+            edgeIds.put(edge, edgeId);
+            return edgeId;
+        }
+
+        private void freeEdge(int edgeId) {
+            edgeIds.remove(edgeAt[edgeId]);
+            edgeAt[edgeId] = null;
+            bidirectional.clear(edgeId);
+            if (freeEdgeCount == freeEdges.length) {
+                freeEdges = Arrays.copyOf(freeEdges, freeEdgeCount * 2);
+            }
+            freeEdges[freeEdgeCount++] = edgeId;
+        }
+
+        private void freeVertex(int id) {
+            if (freeVertexCount == freeVertices.length) {
+                freeVertices = Arrays.copyOf(freeVertices, freeVertexCount * 2);
+            }
+            freeVertices[freeVertexCount++] = id;
+        }
+    }
+}
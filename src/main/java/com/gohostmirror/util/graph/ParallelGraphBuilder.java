@@ -0,0 +1,160 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+/*
+ * Fills a new graph from a stream of edge triples with the result of calling addEdge on each
+ * triple in encounter order: a triple is dropped if an earlier accepted triple has the same
+ * edge or, unless the map allows parallel edges, the same connection (either direction for
+ * undirected graphs).
+ *
+ * Every key first records the lowest index it occurs at, in parallel. A triple that is first
+ * for both its keys is accepted outright; only the remaining ones (normally few) are
+ * gathered and resolved by a sequential pass in index order. The accepted edges are then
+ * handed to GraphMap.addEdges under a single write lock acquisition; how much of that
+ * insertion runs in parallel is up to the map.
+ */
+final class ParallelGraphBuilder {
+    private ParallelGraphBuilder() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V, E> @NotNull Graph<V, E> build(@NotNull AbstractConcurrentGraph<V, E> graph,
+                                             @NotNull Stream<? extends EdgeTriple<V, E>> stream,
+                                             @NotNull ForkJoinPool pool) {
+        GraphEvents.BulkLoad event = new GraphEvents.BulkLoad();
+        event.begin();
+        EdgeTriple<V, E>[] triples = stream.parallel().toArray(EdgeTriple[]::new);
+        int n = triples.length;
+        boolean bidirectional = !graph.isDirectedGraph();
+        boolean parallelEdges = graph.map.allowsParallelEdges();
+        int grain = ParallelRange.grain(pool, n, 1024);
+
+        ConcurrentHashMap<E, Integer> firstEdge = new ConcurrentHashMap<>(n);
+        ConcurrentHashMap<Connection, Integer> firstConnection = new ConcurrentHashMap<>(n);
+        Connection[] connections = new Connection[n];
+        ParallelRange.forEach(pool, n, grain, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                EdgeTriple<V, E> triple = triples[i];
+                firstEdge.merge(triple.edge(), i, Math::min);
+                if (!parallelEdges) {
+                    connections[i] = new Connection(triple.vertex1(), triple.vertex2(), bidirectional);
+                    firstConnection.merge(connections[i], i, Math::min);
+                }
+            }
+        });
+
+        boolean[] clear = new boolean[n];
+        ParallelRange.forEach(pool, n, grain, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                clear[i] = firstEdge.get(triples[i].edge()) == i
+                        && (parallelEdges || firstConnection.get(connections[i]) == i);
+            }
+        });
+
+        // the first occurrence of a key precedes every other one, so a clear triple owns its keys
+        boolean[] resolved = new boolean[n];
+        Set<E> takenEdges = new HashSet<>();
+        Set<Connection> takenConnections = new HashSet<>();
+        for (int i : indices(pool, n, grain, i -> !clear[i])) {
+            EdgeTriple<V, E> triple = triples[i];
+            E edge = triple.edge();
+            Connection connection = connections[i];
+            if (clear[firstEdge.get(edge)] || takenEdges.contains(edge)) {
+                continue;
+            }
+            if (!parallelEdges) {
+                if (clear[firstConnection.get(connection)] || takenConnections.contains(connection)) {
+                    continue;
+                }
+                takenConnections.add(connection);
+            }
+            takenEdges.add(edge);
+            resolved[i] = true;
+        }
+
+        int[] keep = indices(pool, n, grain, i -> clear[i] || resolved[i]);
+        EdgeTriple<V, E>[] kept = (EdgeTriple<V, E>[]) new EdgeTriple<?, ?>[keep.length];
+        ParallelRange.forEach(pool, keep.length, grain, (from, to) -> {
+            for (int k = from; k < to; k++) {
+                kept[k] = triples[keep[k]];
+            }
+        });
+        List<EdgeTriple<V, E>> accepted = Arrays.asList(kept);
+
+        graph.writeBatch(() -> graph.map.addEdges(accepted, bidirectional, pool));
+        GraphEvents.bulkLoaded(event, graph, "stream");
+        return graph;
+    }
+
+    /*
+     * The indices in [0, n) accepted by `filter`, in increasing order, packed in parallel.
+     */
+    private static @NotNull int[] indices(@NotNull ForkJoinPool pool, int n, int grain, @NotNull IntPredicate filter) {
+        int chunks = (n + grain - 1) / grain;
+        int[] offsets = new int[chunks + 1];
+        ParallelRange.forEach(pool, chunks, 1, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                int count = 0;
+                for (int i = c * grain, end = Math.min(n, i + grain); i < end; i++) {
+                    if (filter.test(i)) {
+                        count++;
+                    }
+                }
+                offsets[c + 1] = count;
+            }
+        });
+        for (int c = 0; c < chunks; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] result = new int[offsets[chunks]];
+        ParallelRange.forEach(pool, chunks, 1, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                int k = offsets[c];
+                for (int i = c * grain, end = Math.min(n, i + grain); i < end; i++) {
+                    if (filter.test(i)) {
+                        result[k++] = i;
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    private static final class Connection {
+        private final Object vertex1;
+        private final Object vertex2;
+        private final boolean unordered;
+
+        private Connection(@NotNull Object vertex1, @NotNull Object vertex2, boolean unordered) {
+            this.vertex1 = vertex1;
+            this.vertex2 = vertex2;
+            this.unordered = unordered;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Connection)) return false;
+            Connection that = (Connection) o;
+            return (vertex1.equals(that.vertex1) && vertex2.equals(that.vertex2))
+                    || (unordered && vertex1.equals(that.vertex2) && vertex2.equals(that.vertex1));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash1 = vertex1.hashCode();
+            int hash2 = vertex2.hashCode();
+            return unordered ? hash1 + hash2 : 31 * hash1 + hash2;
+        }
+    }
+}
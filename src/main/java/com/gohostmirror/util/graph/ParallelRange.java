@@ -0,0 +1,91 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Fork-join loops over [0, size) split into contiguous chunks of at most `grain` indices.
+ */
+final class ParallelRange {
+    private ParallelRange() {
+    }
+
+    interface Body {
+        void apply(int from, int to);
+    }
+
+    interface DoubleBody {
+        double apply(int from, int to);
+    }
+
+    static int grain(@NotNull ForkJoinPool pool, int size, int minGrain) {
+        return Math.max(minGrain, size / (pool.getParallelism() * 8));
+    }
+
+    static void forEach(@NotNull ForkJoinPool pool, int size, int grain, @NotNull Body body) {
+        if (size > 0) {
+            pool.invoke(new ForEachTask(0, size, grain, body));
+        }
+    }
+
+    static double sumDouble(@NotNull ForkJoinPool pool, int size, int grain, @NotNull DoubleBody body) {
+        return size > 0 ? pool.invoke(new DoubleSumTask(0, size, grain, body)) : 0d;
+    }
+
+    private static class ForEachTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Body body;
+
+        private ForEachTask(int from, int to, int grain, Body body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.apply(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEachTask(from, middle, grain, body), new ForEachTask(middle, to, grain, body));
+        }
+    }
+
+    private static class DoubleSumTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final DoubleBody body;
+
+        private DoubleSumTask(int from, int to, int grain, DoubleBody body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= grain) {
+                return body.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            DoubleSumTask left = new DoubleSumTask(from, middle, grain, body);
+            left.fork();
+            double right = new DoubleSumTask(middle, to, grain, body).compute();
+            return left.join() + right;
+        }
+    }
+}
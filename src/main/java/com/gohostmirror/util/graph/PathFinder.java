@@ -0,0 +1,137 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+final class PathFinder {
+    private PathFinder() {
+    }
+
+    static <V> @NotNull List<V> findPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                         @NotNull Function<V, ? extends Collection<V>> adjacency) {
+        GraphEvents.PathSearch event = new GraphEvents.PathSearch();
+        event.begin();
+        Queue<VertexNode<V>> vertexQueue = new ArrayDeque<>();
+        for (V vertex : adjacency.apply(fromVertex)) {
+            vertexQueue.add(new VertexNode<>(vertex, null));
+        }
+        Set<V> vertexMarker = new HashSet<>();
+        VertexNode<V> node;
+        while ((node = vertexQueue.poll()) != null) {
+            if (node.vertex.equals(toVertex)) {
+                return GraphEvents.pathSearched(event, fromVertex, toVertex, vertexMarker.size(),
+                        pathTrace(fromVertex, node));
+            }
+            if (vertexMarker.contains(node.vertex)) {
+                continue;
+            }
+            vertexMarker.add(node.vertex);
+            for (V adjacentVertex : adjacency.apply(node.vertex)) {
+                if (!vertexMarker.contains(adjacentVertex)) {
+                    vertexQueue.add(new VertexNode<>(adjacentVertex, node));
+                }
+            }
+        }
+
+        return GraphEvents.pathSearched(event, fromVertex, toVertex, vertexMarker.size(), Collections.emptyList());
+    }
+
+    /*
+     * BFS over incident edges that only crosses edges accepted by `edgeFilter` into vertices
+     * accepted by `vertexFilter`, and returns nothing longer than `maxDepth` edges. Both
+     * endpoints must pass the vertex filter. `opposite` maps (vertex, incident edge) to the
+     * other endpoint, or to null to skip an edge that has disappeared meanwhile.
+     */
+    static <V, E> @NotNull List<V> findPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                            @NotNull Function<V, ? extends Collection<E>> incidentEdges,
+                                            @NotNull BiFunction<V, E, V> opposite,
+                                            @NotNull Predicate<? super V> vertexFilter,
+                                            @NotNull Predicate<? super E> edgeFilter,
+                                            int maxDepth) {
+        if (maxDepth < 1 || !vertexFilter.test(fromVertex) || !vertexFilter.test(toVertex)) {
+            return Collections.emptyList();
+        }
+        GraphEvents.PathSearch event = new GraphEvents.PathSearch();
+        event.begin();
+        Queue<VertexNode<V>> vertexQueue = new ArrayDeque<>();
+        Set<V> vertexMarker = new HashSet<>();
+        VertexNode<V> node = null;
+        V vertex = fromVertex;
+        int depth = 0;
+        do {
+            if (node != null) {
+                vertex = node.vertex;
+                depth = node.depth;
+            }
+            if (depth == maxDepth) {
+                continue;
+            }
+            for (E edge : incidentEdges.apply(vertex)) {
+                if (!edgeFilter.test(edge)) {
+                    continue;
+                }
+                V adjacentVertex = opposite.apply(vertex, edge);
+                if (adjacentVertex == null || vertexMarker.contains(adjacentVertex)) {
+                    continue;
+                }
+                VertexNode<V> next = new VertexNode<>(adjacentVertex, node, depth + 1);
+                if (adjacentVertex.equals(toVertex)) {
+                    return GraphEvents.pathSearched(event, fromVertex, toVertex, vertexMarker.size(),
+                            pathTrace(fromVertex, next));
+                }
+                if (vertexFilter.test(adjacentVertex)) {
+                    vertexMarker.add(adjacentVertex);
+                    vertexQueue.add(next);
+                }
+            }
+        } while ((node = vertexQueue.poll()) != null);
+
+        return GraphEvents.pathSearched(event, fromVertex, toVertex, vertexMarker.size(), Collections.emptyList());
+    }
+
+    /*
+     * The endpoint of an edge (as returned by incidentVertices) that is not `vertex`.
+     */
+    static <V> @NotNull V opposite(@NotNull List<V> ends, @NotNull V vertex) {
+        return ends.get(0).equals(vertex) ? ends.get(1) : ends.get(0);
+    }
+
+    private static <V> @NotNull List<V> pathTrace(@NotNull V fromVertex, VertexNode<V> node) {
+        VertexNode<V> prevNode = null;
+        while(node != null) {
+            VertexNode<V> nextNode = node.prevNode;
+            node.prevNode = prevNode;
+            prevNode = node;
+            node = nextNode;
+        }
+        node = prevNode;
+
+        List<V> result = new ArrayList<>();
+        result.add(fromVertex);
+        while(node != null) {
+            result.add(node.vertex);
+            node = node.prevNode;
+        }
+        return result;
+    }
+
+    private static class VertexNode<V> {
+        private final V vertex;
+        private final int depth;
+        private VertexNode<V> prevNode;
+
+        private VertexNode(V vertex, VertexNode<V> prevNode) {
+            this(vertex, prevNode, 0);
+        }
+
+        private VertexNode(V vertex, VertexNode<V> prevNode, int depth) {
+            this.vertex = vertex;
+            this.prevNode = prevNode;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Function;
+
+/*
+ * Graphs that can expose their GraphMap for the duration of a single read lock acquisition.
+ * Bulk readers (snapshots, exporters) use it to get a consistent view without taking the
+ * lock once per vertex.
+ */
+interface ReadableGraph<V, E> {
+    <R> R readMap(@NotNull Function<? super GraphMap<V, E>, ? extends R> reader);
+
+    /*
+     * Falls back to a GraphMapView when the graph does not implement ReadableGraph.
+     */
+    @SuppressWarnings("unchecked")
+    static <V, E, R> R read(@NotNull Graph<V, E> graph, @NotNull Function<? super GraphMap<V, E>, ? extends R> reader) {
+        if (graph instanceof ReadableGraph) {
+            return ((ReadableGraph<V, E>) graph).readMap(reader);
+        }
+        return reader.apply(new GraphMapView<>(graph));
+    }
+}
@@ -0,0 +1,193 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/*
+ * Primary side of graph replication. Every successful mutation made through this decorator
+ * gets the next version number and is kept in a bounded in-memory history. writeDelta()
+ * encodes the mutations a replica has not seen yet as one deflated frame; a replica that has
+ * fallen out of the history gets a full snapshot frame instead.
+ *
+ * Frame: [int magic][byte kind][long fromVersion][long toVersion][int count]
+ *        [int payloadLength][deflated records], record = [byte type][codec data].
+ */
+public final class ReplicationSource<V, E> extends ForwardingGraph<V, E> {
+    public static final int DEFAULT_HISTORY = 1 << 20;
+
+    static final int FRAME_MAGIC = 0x47524450;
+    static final byte DELTA = 1;
+    static final byte SNAPSHOT = 2;
+
+    private final GraphCodec<V> vertexCodec;
+    private final GraphCodec<E> edgeCodec;
+    private final Mutation[] history;
+    private final Object mutex = new Object();
+    private long version;
+
+    public ReplicationSource(@NotNull Graph<V, E> graph, @NotNull GraphCodec<V> vertexCodec, @NotNull GraphCodec<E> edgeCodec) {
+        this(graph, vertexCodec, edgeCodec, DEFAULT_HISTORY);
+    }
+
+    public ReplicationSource(@NotNull Graph<V, E> graph, @NotNull GraphCodec<V> vertexCodec,
+                             @NotNull GraphCodec<E> edgeCodec, int historySize) {
+        super(graph);
+        if (historySize < 1) {
+            throw new IllegalArgumentException("historySize must be positive: " + historySize);
+        }
+        this.vertexCodec = vertexCodec;
+        this.edgeCodec = edgeCodec;
+        this.history = new Mutation[historySize];
+    }
+
+    @Contract(pure = true)
+    public long version() {
+        synchronized (mutex) {
+            return version;
+        }
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        synchronized (mutex) {
+            if (!delegate.addVertex(vertex)) {
+                return false;
+            }
+            record(new Mutation(WriteAheadLog.VERTEX, null, vertex, null));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        synchronized (mutex) {
+            if (!delegate.addEdge(edge, vertex1, vertex2)) {
+                return false;
+            }
+            record(new Mutation(WriteAheadLog.EDGE, edge, vertex1, vertex2));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        synchronized (mutex) {
+            if (!delegate.removeVertex(vertex)) {
+                return false;
+            }
+            record(new Mutation(WriteAheadLog.REMOVE_VERTEX, null, vertex, null));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        synchronized (mutex) {
+            if (!delegate.removeEdge(edge)) {
+                return false;
+            }
+            record(new Mutation(WriteAheadLog.REMOVE_EDGE, edge, null, null));
+            return true;
+        }
+    }
+
+    /*
+     * Writes the mutations after `sinceVersion` (or a snapshot when they are no longer
+     * retained) and returns the version the replica reaches by applying the frame.
+     */
+    public long writeDelta(long sinceVersion, @NotNull OutputStream out) throws IOException {
+        Mutation[] mutations;
+        byte kind;
+        long toVersion;
+        synchronized (mutex) {
+            if (sinceVersion > version) {
+                throw new IllegalArgumentException("Version " + sinceVersion + " is ahead of the source at " + version);
+            }
+            toVersion = version;
+            if (sinceVersion >= version - history.length && sinceVersion >= 0) {
+                kind = DELTA;
+                mutations = new Mutation[(int) (version - sinceVersion)];
+                for (int i = 0; i < mutations.length; i++) {
+                    mutations[i] = history[(int) ((sinceVersion + i) % history.length)];
+                }
+            } else {
+                kind = SNAPSHOT;
+                mutations = snapshot();
+            }
+        }
+        writeFrame(out, kind, kind == DELTA ? sinceVersion : 0, toVersion, mutations);
+        return toVersion;
+    }
+
+    private void record(@NotNull Mutation mutation) {
+        history[(int) (version % history.length)] = mutation;
+        version++;
+    }
+
+    private @NotNull Mutation[] snapshot() {
+        return ReadableGraph.read(delegate, map -> {
+            Mutation[] result = new Mutation[map.getVertexCount() + map.getEdgeCount()];
+            int i = 0;
+            for (V vertex : map.getVertices()) {
+                result[i++] = new Mutation(WriteAheadLog.VERTEX, null, vertex, null);
+            }
+            for (E edge : map.getEdges()) {
+                List<V> ends = map.incidentVertices(edge);
+                result[i++] = new Mutation(WriteAheadLog.EDGE, edge, ends.get(0), ends.get(1));
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeFrame(@NotNull OutputStream stream, byte kind, long fromVersion, long toVersion,
+                            @NotNull Mutation[] mutations) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream records = new DataOutputStream(new DeflaterOutputStream(payload, deflater, 8192))) {
+            for (Mutation mutation : mutations) {
+                records.writeByte(mutation.type);
+                if (mutation.type == WriteAheadLog.EDGE) {
+                    edgeCodec.write(records, (E) mutation.edge);
+                    vertexCodec.write(records, (V) mutation.vertex1);
+                    vertexCodec.write(records, (V) mutation.vertex2);
+                } else if (mutation.type == WriteAheadLog.REMOVE_EDGE) {
+                    edgeCodec.write(records, (E) mutation.edge);
+                } else {
+                    vertexCodec.write(records, (V) mutation.vertex1);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(FRAME_MAGIC);
+        out.writeByte(kind);
+        out.writeLong(fromVersion);
+        out.writeLong(toVersion);
+        out.writeInt(mutations.length);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+        out.flush();
+    }
+
+    private static class Mutation {
+        private final byte type;
+        private final Object edge;
+        private final Object vertex1;
+        private final Object vertex2;
+
+        private Mutation(byte type, Object edge, Object vertex1, Object vertex2) {
+            this.type = type;
+            this.edge = edge;
+            this.vertex1 = vertex1;
+            this.vertex2 = vertex2;
+        }
+    }
+}
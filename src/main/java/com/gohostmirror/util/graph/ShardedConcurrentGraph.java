@@ -0,0 +1,484 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/*
+ * Vertices are hashed into shards, each with its own GraphMap and lock. A shard stores the
+ * adjacency of the vertices it owns; the far endpoint of a cross-shard edge appears in the
+ * source shard's map only as an adjacency target. Writes lock the shards of the two
+ * endpoints (in index order), reads lock one shard at a time, so traversals are not a
+ * point-in-time snapshot of the whole graph.
+ *
+ * removeVertex write-locks every shard, since edges pointing at the vertex can live in any
+ * of them. Direct edges from other vertices are left as GraphMap tombstones; the edge
+ * registry may hold such dead edges until the shard is compacted, so registry hits are
+ * always confirmed against the home shard's map.
+ */
+abstract class ShardedConcurrentGraph<V, E> implements Graph<V, E> {
+    private final Shard<V, E>[] shards;
+    private final ConcurrentHashMap<E, Shard<V, E>> edgeShards = new ConcurrentHashMap<>();
+
+    public ShardedConcurrentGraph(int shardCount) {
+        this(new MixedGraphFactory<>(), shardCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ShardedConcurrentGraph(@NotNull AbstractGraphFactory<V, E> factory, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        shards = (Shard<V, E>[]) new Shard<?, ?>[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard<>(i, factory.graphMap());
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getVertexCount() {
+        int count = 0;
+        for (Shard<V, E> shard : shards) {
+            shard.readLock.lock();
+            try {
+                count += shard.vertexCount;
+            } finally {
+                shard.readLock.unlock();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getEdgeCount() {
+        int count = 0;
+        for (Shard<V, E> shard : shards) {
+            shard.readLock.lock();
+            try {
+                count += shard.map.getEdgeCount() - shard.mirrorCount;
+            } finally {
+                shard.readLock.unlock();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isVertex(@NotNull V vertex) {
+        Shard<V, E> shard = shardOf(vertex);
+        shard.readLock.lock();
+        try {
+            return shard.map.isVertex(vertex);
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isEdge(@NotNull E edge) {
+        Shard<V, E> shard = edgeShards.get(edge);
+        if (shard == null) {
+            return false;
+        }
+        shard.readLock.lock();
+        try {
+            return shard.map.isEdge(edge);
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<V> getVertices() {
+        List<V> result = new ArrayList<>();
+        for (Shard<V, E> shard : shards) {
+            shard.readLock.lock();
+            try {
+                for (V vertex : shard.map.getVertices()) {
+                    if (shardOf(vertex) == shard) {
+                        result.add(vertex);
+                    }
+                }
+            } finally {
+                shard.readLock.unlock();
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> getEdges() {
+        List<E> result = new ArrayList<>();
+        for (E edge : edgeShards.keySet()) {
+            if (isEdge(edge)) {
+                result.add(edge);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+        Shard<V, E> shard = shardOf(vertex);
+        shard.readLock.lock();
+        try {
+            return List.copyOf(shard.map.incidentEdges(vertex));
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> incidentVertices(@NotNull E edge) {
+        Shard<V, E> shard = edgeShards.get(edge);
+        if (shard == null) {
+            return Collections.emptyList();
+        }
+        shard.readLock.lock();
+        try {
+            return shard.map.incidentVertices(edge);
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+        Shard<V, E> shard = shardOf(vertex1);
+        shard.readLock.lock();
+        try {
+            return shard.map.getEdge(vertex1, vertex2);
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> connectingEdges(@NotNull V vertex1, @NotNull V vertex2) {
+        Shard<V, E> shard = shardOf(vertex1);
+        shard.readLock.lock();
+        try {
+            return List.copyOf(shard.map.connectingEdges(vertex1, vertex2));
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex) {
+        if (!isVertex(fromVertex) || !isVertex(toVertex)) {
+            return Collections.emptyList();
+        }
+        return PathFinder.findPath(fromVertex, toVertex, this::adjacentVertices);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                    @NotNull Predicate<? super V> vertexFilter,
+                                    @NotNull Predicate<? super E> edgeFilter,
+                                    int maxDepth) {
+        if (!isVertex(fromVertex) || !isVertex(toVertex)) {
+            return Collections.emptyList();
+        }
+        return PathFinder.findPath(fromVertex, toVertex, this::incidentEdges, this::opposite,
+                vertexFilter, edgeFilter, maxDepth);
+    }
+
+    /*
+     * Holds every shard's read lock for the whole expansion, so the result is one consistent
+     * cut of the graph.
+     */
+    @Override
+    @Contract(pure = true)
+    public @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit, boolean withEdges) {
+        for (Shard<V, E> shard : shards) {
+            shard.readLock.lock();
+        }
+        try {
+            if (!shardOf(vertex).map.isVertex(vertex)) {
+                return Neighbourhood.empty();
+            }
+            return Neighbourhood.collect(vertex, maxHops, limit, withEdges, isDirectedGraph(),
+                    from -> shardOf(from).map.incidentEdges(from),
+                    (from, edge) -> {
+                        List<V> ends = shardOf(from).map.incidentVertices(edge);
+                        return ends.isEmpty() ? null : PathFinder.opposite(ends, from);
+                    });
+        } finally {
+            for (Shard<V, E> shard : shards) {
+                shard.readLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        Shard<V, E> shard = shardOf(vertex);
+        shard.writeLock.lock();
+        try {
+            return shard.addOwnVertex(vertex);
+        } finally {
+            shard.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        Shard<V, E> previous = edgeShards.get(edge);
+        if (previous != null) {
+            if (isEdge(edge)) {
+                return false;
+            }
+            edgeShards.remove(edge, previous);
+        }
+
+        Shard<V, E> shard1 = shardOf(vertex1);
+        Shard<V, E> shard2 = shardOf(vertex2);
+        lock(shard1, shard2, true);
+        try {
+            if (isConnectionUnsafe(shard1, shard2, vertex1, vertex2)) {
+                return false;
+            }
+            if (edgeShards.putIfAbsent(edge, shard1) != null) {
+                return false;
+            }
+            shard1.addOwnVertex(vertex1);
+            shard2.addOwnVertex(vertex2);
+            addEdgeUnsafe(shard1, shard2, edge, vertex1, vertex2);
+            return true;
+        } finally {
+            unlock(shard1, shard2, true);
+        }
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        Shard<V, E> owner = shardOf(vertex);
+        for (Shard<V, E> shard : shards) {
+            shard.writeLock.lock();
+        }
+        try {
+            if (!owner.map.isVertex(vertex)) {
+                return false;
+            }
+            for (E edge : List.copyOf(owner.map.incidentEdges(vertex))) {
+                if (isDirectedGraph()) {
+                    edgeShards.remove(edge);
+                } else {
+                    // the owner may hold only the mirror of an edge whose home is the neighbour's shard
+                    List<V> ends = owner.map.incidentVertices(edge);
+                    Shard<V, E> home = edgeShards.get(edge);
+                    Shard<V, E> other = shardOf(ends.get(ends.get(0).equals(vertex) ? 1 : 0));
+                    removeEdgeUnsafe(home, home == owner ? other : owner, edge);
+                }
+            }
+            for (Shard<V, E> shard : shards) {
+                if (shard.map.removeVertex(vertex) && shard == owner) {
+                    shard.vertexCount--;
+                }
+            }
+        } finally {
+            for (int i = shards.length - 1; i >= 0; i--) {
+                shards[i].writeLock.unlock();
+            }
+        }
+        for (Shard<V, E> shard : shards) {
+            scheduleCompactionIfNeeded(shard);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        Shard<V, E> home = edgeShards.get(edge);
+        if (home == null) {
+            return false;
+        }
+        List<V> ends;
+        home.readLock.lock();
+        try {
+            ends = home.map.incidentVertices(edge);
+        } finally {
+            home.readLock.unlock();
+        }
+        if (ends.isEmpty()) {
+            return false;
+        }
+
+        Shard<V, E> other = shardOf(ends.get(1));
+        lock(home, other, true);
+        try {
+            if (edgeShards.get(edge) != home || !ends.equals(home.map.incidentVertices(edge))) {
+                return false;
+            }
+            removeEdgeUnsafe(home, other, edge);
+        } finally {
+            unlock(home, other, true);
+        }
+        scheduleCompactionIfNeeded(home);
+        return true;
+    }
+
+    /*
+     * Compacts every shard and drops registry entries for edges that died as tombstones.
+     */
+    public void compact() {
+        for (Shard<V, E> shard : shards) {
+            compact(shard);
+        }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
+        Shard<V, E> shard1 = shardOf(vertex1);
+        Shard<V, E> shard2 = shardOf(vertex2);
+        lock(shard1, shard2, false);
+        try {
+            return isConnectionUnsafe(shard1, shard2, vertex1, vertex2);
+        } finally {
+            unlock(shard1, shard2, false);
+        }
+    }
+
+    abstract boolean isConnectionUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2,
+                                        @NotNull V vertex1, @NotNull V vertex2);
+
+    abstract void addEdgeUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2,
+                                @NotNull E edge, @NotNull V vertex1, @NotNull V vertex2);
+
+    /*
+     * Both endpoint shards must be write-locked; shard1 is the edge's home shard.
+     */
+    void removeEdgeUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2, @NotNull E edge) {
+        shard1.map.removeEdge(edge);
+        if (shard2 != shard1 && shard2.map.removeEdge(edge)) {
+            shard2.mirrorCount--;
+        }
+        edgeShards.remove(edge, shard1);
+    }
+
+    private void scheduleCompactionIfNeeded(@NotNull Shard<V, E> shard) {
+        boolean needsCompaction;
+        shard.readLock.lock();
+        try {
+            needsCompaction = shard.map.needsCompaction();
+        } finally {
+            shard.readLock.unlock();
+        }
+        if (needsCompaction) {
+            Compactor.schedule(shard.compactionScheduled, () -> compact(shard));
+        }
+    }
+
+    private void compact(@NotNull Shard<V, E> shard) {
+        shard.writeLock.lock();
+        try {
+            shard.map.compact();
+            edgeShards.entrySet().removeIf(entry -> entry.getValue() == shard && !shard.map.isEdge(entry.getKey()));
+        } finally {
+            shard.writeLock.unlock();
+        }
+    }
+
+    @Contract(pure = true)
+    int getShardCount() {
+        return shards.length;
+    }
+
+    private @NotNull Collection<V> adjacentVertices(@NotNull V vertex) {
+        Shard<V, E> shard = shardOf(vertex);
+        shard.readLock.lock();
+        try {
+            return List.copyOf(shard.map.adjacentVertices(vertex));
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    /*
+     * Both home entries and mirrors are keyed by edge in the shard owning `vertex`; null if
+     * the edge was removed since it was listed.
+     */
+    private @Nullable V opposite(@NotNull V vertex, @NotNull E edge) {
+        Shard<V, E> shard = shardOf(vertex);
+        shard.readLock.lock();
+        try {
+            List<V> ends = shard.map.incidentVertices(edge);
+            return ends.isEmpty() ? null : PathFinder.opposite(ends, vertex);
+        } finally {
+            shard.readLock.unlock();
+        }
+    }
+
+    @Contract(pure = true)
+    @NotNull Shard<V, E> shardOf(@NotNull V vertex) {
+        int h = vertex.hashCode() * 0x9E3779B9;
+        return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+    }
+
+    private static void lock(@NotNull Shard<?, ?> shard1, @NotNull Shard<?, ?> shard2, boolean write) {
+        Shard<?, ?> first = shard1.index <= shard2.index ? shard1 : shard2;
+        Shard<?, ?> second = first == shard1 ? shard2 : shard1;
+        (write ? first.writeLock : first.readLock).lock();
+        if (second != first) {
+            (write ? second.writeLock : second.readLock).lock();
+        }
+    }
+
+    private static void unlock(@NotNull Shard<?, ?> shard1, @NotNull Shard<?, ?> shard2, boolean write) {
+        (write ? shard1.writeLock : shard1.readLock).unlock();
+        if (shard2 != shard1) {
+            (write ? shard2.writeLock : shard2.readLock).unlock();
+        }
+    }
+
+    static class Shard<V, E> {
+        private final int index;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Lock readLock = lock.readLock();
+        private final Lock writeLock;
+        private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+        final GraphMap<V, E> map;
+        private int vertexCount;
+        int mirrorCount;
+
+        private Shard(int index, @NotNull GraphMap<V, E> map) {
+            this.index = index;
+            this.map = map;
+            writeLock = GraphEvents.monitorWaits(lock.writeLock(), "ShardedConcurrentGraph", index);
+        }
+
+        /*
+         * The map may already hold the vertex as the target of a cross-shard edge, so the
+         * owned vertex count is kept here rather than taken from the map.
+         */
+        private boolean addOwnVertex(@NotNull V vertex) {
+            if (map.isVertex(vertex)) {
+                return false;
+            }
+            vertexCount++;
+            return map.addVertex(vertex);
+        }
+    }
+}
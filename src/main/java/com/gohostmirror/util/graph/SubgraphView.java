@@ -0,0 +1,187 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/*
+ * Read-only view of the vertices and edges of `parent` accepted by the filters; an edge is
+ * visible only if both of its endpoints are. Nothing is copied: every call goes to the parent
+ * and filters the result, so counts and getVertices()/getEdges() cost a full scan, and the
+ * view reflects later changes to the parent.
+ */
+final class SubgraphView<V, E> implements Graph<V, E> {
+    private final Graph<V, E> parent;
+    private final Predicate<? super V> vertexFilter;
+    private final Predicate<? super E> edgeFilter;
+
+    SubgraphView(@NotNull Graph<V, E> parent, @NotNull Predicate<? super V> vertexFilter,
+                 @NotNull Predicate<? super E> edgeFilter) {
+        this.parent = parent;
+        this.vertexFilter = vertexFilter;
+        this.edgeFilter = edgeFilter;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return parent.isDirectedGraph();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getVertexCount() {
+        return getVertices().size();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getEdgeCount() {
+        return getEdges().size();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isVertex(@NotNull V vertex) {
+        return vertexFilter.test(vertex) && parent.isVertex(vertex);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isEdge(@NotNull E edge) {
+        return !incidentVertices(edge).isEmpty();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<V> getVertices() {
+        List<V> result = new ArrayList<>();
+        for (V vertex : parent.getVertices()) {
+            if (vertexFilter.test(vertex)) {
+                result.add(vertex);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> getEdges() {
+        List<E> result = new ArrayList<>();
+        for (E edge : parent.getEdges()) {
+            if (isEdge(edge)) {
+                result.add(edge);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Collection<E> incidentEdges(@NotNull V vertex) {
+        if (!vertexFilter.test(vertex)) {
+            return Collections.emptyList();
+        }
+        List<E> result = new ArrayList<>();
+        for (E edge : parent.incidentEdges(vertex)) {
+            if (isEdge(edge)) {
+                result.add(edge);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> incidentVertices(@NotNull E edge) {
+        if (!edgeFilter.test(edge)) {
+            return Collections.emptyList();
+        }
+        List<V> ends = parent.incidentVertices(edge);
+        if (ends.isEmpty() || !vertexFilter.test(ends.get(0)) || !vertexFilter.test(ends.get(1))) {
+            return Collections.emptyList();
+        }
+        return ends;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @Nullable E getEdge(@NotNull V vertex1, @NotNull V vertex2) {
+        if (!vertexFilter.test(vertex1) || !vertexFilter.test(vertex2)) {
+            return null;
+        }
+        // on a multigraph the parent's choice may be filtered out while a parallel edge is not
+        for (E edge : parent.connectingEdges(vertex1, vertex2)) {
+            if (edgeFilter.test(edge)) {
+                return edge;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex) {
+        return parent.getPath(fromVertex, toVertex, vertexFilter, edgeFilter, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull List<V> getPath(@NotNull V fromVertex, @NotNull V toVertex,
+                                    @NotNull Predicate<? super V> vertexFilter,
+                                    @NotNull Predicate<? super E> edgeFilter,
+                                    int maxDepth) {
+        Predicate<V> vertices = vertex -> this.vertexFilter.test(vertex) && vertexFilter.test(vertex);
+        Predicate<E> edges = edge -> this.edgeFilter.test(edge) && edgeFilter.test(edge);
+        return parent.getPath(fromVertex, toVertex, vertices, edges, maxDepth);
+    }
+
+    /*
+     * Runs on the view's own incidence, so it takes one parent lock acquisition per vertex.
+     */
+    @Override
+    @Contract(pure = true)
+    public @NotNull Neighbourhood<V, E> neighbourhood(@NotNull V vertex, int maxHops, int limit, boolean withEdges) {
+        if (!isVertex(vertex)) {
+            return Neighbourhood.empty();
+        }
+        return Neighbourhood.collect(vertex, maxHops, limit, withEdges, isDirectedGraph(), this::incidentEdges,
+                (from, edge) -> {
+                    List<V> ends = incidentVertices(edge);
+                    return ends.isEmpty() ? null : PathFinder.opposite(ends, from);
+                });
+    }
+
+    @Override
+    public boolean addVertex(@NotNull V vertex) {
+        throw new UnsupportedOperationException("Subgraph views are read-only");
+    }
+
+    @Override
+    public boolean addEdge(@NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        throw new UnsupportedOperationException("Subgraph views are read-only");
+    }
+
+    @Override
+    public boolean removeVertex(@NotNull V vertex) {
+        throw new UnsupportedOperationException("Subgraph views are read-only");
+    }
+
+    @Override
+    public boolean removeEdge(@NotNull E edge) {
+        throw new UnsupportedOperationException("Subgraph views are read-only");
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isConnection(@NotNull V vertex1, @NotNull V vertex2) {
+        // undirected edges connect both ways, so any accepted edge from vertex1 is enough
+        return parent.isConnection(vertex1, vertex2) && getEdge(vertex1, vertex2) != null;
+    }
+}
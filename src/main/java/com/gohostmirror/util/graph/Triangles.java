@@ -0,0 +1,181 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Triangle enumeration over the simple undirected graph underlying a CompactGraph: arc
+ * direction, self-loops and duplicate arcs are ignored. Every edge is oriented from the
+ * endpoint of lower (degree, id) rank to the higher one, which bounds every out-list by
+ * O(sqrt(m)), and each triangle is found exactly once at its lowest-ranked corner by
+ * intersecting two sorted out-lists.
+ */
+final class Triangles {
+    // a list this many times longer than the other is searched by galloping instead of merged
+    private static final int GALLOP_RATIO = 16;
+
+    final int[] degrees;
+    final long[] counts;
+
+    private Triangles(@NotNull int[] degrees, @NotNull long[] counts) {
+        this.degrees = degrees;
+        this.counts = counts;
+    }
+
+    static @NotNull Triangles count(@NotNull CompactGraph<?> graph, @NotNull ForkJoinPool pool) {
+        int n = graph.getVertexCount();
+        int[] offsets = new int[n + 1];
+        int[] targets = simple(graph, offsets);
+        int[] degrees = new int[n];
+        for (int id = 0; id < n; id++) {
+            degrees[id] = offsets[id + 1] - offsets[id];
+        }
+
+        int[] outOffsets = new int[n + 1];
+        int[] outTargets = new int[targets.length / 2];
+        for (int id = 0; id < n; id++) {
+            int size = outOffsets[id];
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if (precedes(degrees, id, targets[i])) {
+                    outTargets[size++] = targets[i];
+                }
+            }
+            outOffsets[id + 1] = size;
+        }
+
+        AtomicLongArray counts = new AtomicLongArray(n);
+        ParallelRange.forEach(pool, n, ParallelRange.grain(pool, n, 64), (from, to) -> {
+            for (int u = from; u < to; u++) {
+                int uFrom = outOffsets[u];
+                int uTo = outOffsets[u + 1];
+                long local = 0;
+                for (int i = uFrom; i < uTo; i++) {
+                    int v = outTargets[i];
+                    int found = intersect(outTargets, uFrom, uTo, outOffsets[v], outOffsets[v + 1], counts);
+                    if (found > 0) {
+                        local += found;
+                        counts.addAndGet(v, found);
+                    }
+                }
+                if (local > 0) {
+                    counts.addAndGet(u, local);
+                }
+            }
+        });
+
+        long[] result = new long[n];
+        for (int id = 0; id < n; id++) {
+            result[id] = counts.get(id);
+        }
+        return new Triangles(degrees, result);
+    }
+
+    /*
+     * Counts the ids present in both sorted ranges a[aFrom, aTo) and a[bFrom, bTo) and adds one
+     * triangle to each of them.
+     */
+    private static int intersect(@NotNull int[] a, int aFrom, int aTo, int bFrom, int bTo,
+                                 @NotNull AtomicLongArray counts) {
+        if (aTo - aFrom > bTo - bFrom) {
+            int from = aFrom;
+            int to = aTo;
+            aFrom = bFrom;
+            aTo = bTo;
+            bFrom = from;
+            bTo = to;
+        }
+        int found = 0;
+        if ((long) (aTo - aFrom) * GALLOP_RATIO < bTo - bFrom) {
+            for (int i = aFrom; i < aTo && bFrom < bTo; i++) {
+                bFrom = gallop(a, bFrom, bTo, a[i]);
+                if (bFrom < bTo && a[bFrom] == a[i]) {
+                    counts.incrementAndGet(a[i]);
+                    found++;
+                    bFrom++;
+                }
+            }
+            return found;
+        }
+        while (aFrom < aTo && bFrom < bTo) {
+            int x = a[aFrom];
+            int y = a[bFrom];
+            if (x < y) {
+                aFrom++;
+            } else if (x > y) {
+                bFrom++;
+            } else {
+                counts.incrementAndGet(x);
+                found++;
+                aFrom++;
+                bFrom++;
+            }
+        }
+        return found;
+    }
+
+    /*
+     * First index in the sorted range a[from, to) whose value is >= key: exponential probe,
+     * then binary search inside the last step.
+     */
+    private static int gallop(@NotNull int[] a, int from, int to, int key) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && a[high] < key) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (a[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean precedes(@NotNull int[] degrees, int u, int v) {
+        return degrees[u] < degrees[v] || (degrees[u] == degrees[v] && u < v);
+    }
+
+    /*
+     * Sorted, duplicate- and loop-free symmetric adjacency; fills `offsets`, returns targets.
+     */
+    private static @NotNull int[] simple(@NotNull CompactGraph<?> graph, @NotNull int[] offsets) {
+        int n = graph.getVertexCount();
+        int[] outOffsets = graph.offsets();
+        int[] outTargets = graph.targets();
+        CompactGraph<?> transposed = graph.transpose();
+        int[] inOffsets = transposed == graph ? new int[n + 1] : transposed.offsets();
+        int[] inTargets = transposed.targets();
+        int[] targets = new int[outTargets.length + (transposed == graph ? 0 : inTargets.length)];
+        int size = 0;
+        for (int id = 0; id < n; id++) {
+            int i = outOffsets[id];
+            int j = inOffsets[id];
+            int iTo = outOffsets[id + 1];
+            int jTo = inOffsets[id + 1];
+            int last = -1;
+            while (i < iTo || j < jTo) {
+                int next;
+                if (j >= jTo || (i < iTo && outTargets[i] <= inTargets[j])) {
+                    next = outTargets[i++];
+                } else {
+                    next = inTargets[j++];
+                }
+                if (next != id && next != last) {
+                    targets[size++] = next;
+                    last = next;
+                }
+            }
+            offsets[id + 1] = size;
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,42 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+class UndirectedShardedGraph<V, E> extends ShardedConcurrentGraph<V, E> {
+    UndirectedShardedGraph(int shardCount) {
+        super(shardCount);
+    }
+
+    UndirectedShardedGraph(@NotNull AbstractGraphFactory<V, E> factory, int shardCount) {
+        super(factory, shardCount);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean isDirectedGraph() {
+        return false;
+    }
+
+    @Override
+    boolean isConnectionUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2,
+                               @NotNull V vertex1, @NotNull V vertex2) {
+        return shard1.map.isDirectConnection(vertex1, vertex2) && shard2.map.isDirectConnection(vertex2, vertex1);
+    }
+
+    /*
+     * A cross-shard edge is stored once per endpoint shard: the home shard keeps the
+     * (vertex1, vertex2) pair reported by incidentVertices, the other shard a mirror.
+     */
+    @Override
+    void addEdgeUnsafe(@NotNull Shard<V, E> shard1, @NotNull Shard<V, E> shard2,
+                       @NotNull E edge, @NotNull V vertex1, @NotNull V vertex2) {
+        if (shard1 == shard2) {
+            shard1.map.addBidirectionalEdge(edge, vertex1, vertex2);
+        } else {
+            shard1.map.addDirectEdge(edge, vertex1, vertex2);
+            shard2.map.addDirectEdge(edge, vertex2, vertex1);
+            shard2.mirrorCount++;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/*
+ * Dense id assignments for CompactGraph. Traversals touch per-vertex arrays at the ids of
+ * neighbours, so orders that keep neighbours close together turn scattered reads into
+ * mostly sequential ones. Directed graphs are ordered by their underlying undirected
+ * topology.
+ */
+public enum VertexOrder {
+    /*
+     * Iteration order of Graph.getVertices(), usually insertion order.
+     */
+    INSERTION,
+    /*
+     * Breadth-first discovery order, each component started from its highest-degree vertex.
+     */
+    BFS,
+    /*
+     * Reverse Cuthill-McKee: breadth-first from a pseudo-peripheral vertex, visiting
+     * neighbours by increasing degree, then reversed. Minimises the spread between a vertex's
+     * id and its neighbours' ids on mesh- and road-like graphs.
+     */
+    REVERSE_CUTHILL_MCKEE,
+    /*
+     * Descending degree, so the frequently visited hubs share a few cache lines.
+     */
+    DEGREE;
+
+    /*
+     * Returns order[newId] = oldId for the symmetric adjacency (offsets, targets).
+     */
+    @NotNull int[] order(@NotNull int[] offsets, @NotNull int[] targets) {
+        int n = offsets.length - 1;
+        switch (this) {
+            case BFS:
+                return breadthFirst(offsets, targets, byDegree(offsets, false), false);
+            case REVERSE_CUTHILL_MCKEE: {
+                int[] order = breadthFirst(offsets, targets, byDegree(offsets, true), true);
+                for (int i = 0, j = n - 1; i < j; i++, j--) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                }
+                return order;
+            }
+            case DEGREE:
+                return byDegree(offsets, false);
+            default: {
+                int[] order = new int[n];
+                for (int id = 0; id < n; id++) {
+                    order[id] = id;
+                }
+                return order;
+            }
+        }
+    }
+
+    /*
+     * Visits every component, starting each from the first unvisited vertex of `starts`.
+     * With `peripheral` the start is first moved to a pseudo-peripheral vertex (George-Liu)
+     * and neighbours are queued by increasing degree.
+     */
+    private static @NotNull int[] breadthFirst(@NotNull int[] offsets, @NotNull int[] targets,
+                                               @NotNull int[] starts, boolean peripheral) {
+        int n = offsets.length - 1;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int[] level = null;
+        if (peripheral) {
+            level = new int[n];
+            Arrays.fill(level, -1);
+        }
+        int size = 0;
+        for (int start : starts) {
+            if (visited[start]) {
+                continue;
+            }
+            if (peripheral) {
+                start = pseudoPeripheral(offsets, targets, start, order, size, level);
+            }
+            int head = size;
+            order[size++] = start;
+            visited[start] = true;
+            while (head < size) {
+                int vertex = order[head++];
+                int first = size;
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                    int target = targets[i];
+                    if (!visited[target]) {
+                        visited[target] = true;
+                        order[size++] = target;
+                    }
+                }
+                if (peripheral) {
+                    sortByDegree(order, first, size, offsets);
+                }
+            }
+        }
+        return order;
+    }
+
+    /*
+     * Repeatedly jumps to the lowest-degree vertex of the last BFS level while the level count
+     * (eccentricity) grows. Uses order[from ..] as scratch space.
+     */
+    private static int pseudoPeripheral(@NotNull int[] offsets, @NotNull int[] targets, int start,
+                                        @NotNull int[] scratch, int from, @NotNull int[] level) {
+        int eccentricity = -1;
+        while (true) {
+            int size = from;
+            int head = from;
+            scratch[size++] = start;
+            level[start] = 0;
+            int depth = 0;
+            while (head < size) {
+                int vertex = scratch[head++];
+                depth = level[vertex];
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                    int target = targets[i];
+                    if (level[target] < 0) {
+                        level[target] = depth + 1;
+                        scratch[size++] = target;
+                    }
+                }
+            }
+            // the last level is the tail of the queue
+            int candidate = scratch[size - 1];
+            for (int i = from; i < size; i++) {
+                int vertex = scratch[i];
+                if (level[vertex] == depth && degree(offsets, vertex) < degree(offsets, candidate)) {
+                    candidate = vertex;
+                }
+                level[vertex] = -1;
+            }
+            if (depth <= eccentricity || depth == 0) {
+                return start;
+            }
+            eccentricity = depth;
+            start = candidate;
+        }
+    }
+
+    private static @NotNull int[] byDegree(@NotNull int[] offsets, boolean ascending) {
+        int n = offsets.length - 1;
+        int maxDegree = 0;
+        for (int id = 0; id < n; id++) {
+            maxDegree = Math.max(maxDegree, degree(offsets, id));
+        }
+        // counting sort, stable by id
+        int[] counts = new int[maxDegree + 2];
+        for (int id = 0; id < n; id++) {
+            int key = ascending ? degree(offsets, id) : maxDegree - degree(offsets, id);
+            counts[key + 1]++;
+        }
+        for (int key = 0; key <= maxDegree; key++) {
+            counts[key + 1] += counts[key];
+        }
+        int[] order = new int[n];
+        for (int id = 0; id < n; id++) {
+            int key = ascending ? degree(offsets, id) : maxDegree - degree(offsets, id);
+            order[counts[key]++] = id;
+        }
+        return order;
+    }
+
+    private static void sortByDegree(@NotNull int[] ids, int from, int to, @NotNull int[] offsets) {
+        if (to - from > 32) {
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                keys[i - from] = (long) degree(offsets, ids[i]) << 32 | ids[i];
+            }
+            Arrays.sort(keys);
+            for (int i = from; i < to; i++) {
+                ids[i] = (int) keys[i - from];
+            }
+            return;
+        }
+        for (int i = from + 1; i < to; i++) {
+            int id = ids[i];
+            int degree = degree(offsets, id);
+            int j = i - 1;
+            while (j >= from && degree(offsets, ids[j]) > degree) {
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            ids[j + 1] = id;
+        }
+    }
+
+    private static int degree(@NotNull int[] offsets, int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+}
@@ -0,0 +1,266 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * Append-only log split into numbered segment files. A record is
+ * [int length][int crc32][byte type][payload]; replay stops at the first short or corrupt
+ * record and truncates the segment there, which is where a crash can leave a torn write.
+ * Only the newest segment can end in one, since a segment is forced before the next is
+ * started.
+ *
+ * Appends only copy into an in-memory buffer. The buffer is written (and forced, depending on
+ * the policy) by whichever thread calls sync() first; threads that appended before that write
+ * started find their records already durable and return without doing I/O.
+ *
+ * A failed write or force leaves the segment with an unknown tail, so the log fails for good:
+ * the batch is neither retried nor reported durable, and every later append, commit or sync
+ * throws.
+ */
+final class WriteAheadLog implements Closeable {
+    static final byte VERTEX = 1;
+    static final byte EDGE = 2;
+    static final byte REMOVE_VERTEX = 3;
+    static final byte REMOVE_EDGE = 4;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 9;
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final Object syncLock = new Object();
+
+    private byte[] buffer = new byte[8192];
+    private byte[] flushBuffer = new byte[8192];
+    private int bufferSize;
+    private long appended;
+    private long segmentBytes;
+    private long segment;
+    private FileChannel channel;
+    private IOException failure;
+    private volatile long durable;
+
+    WriteAheadLog(@NotNull Path directory, long segment, @NotNull FsyncPolicy policy) throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+    }
+
+    synchronized long append(byte type, @NotNull byte[] payload) {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        int recordSize = HEADER_SIZE + payload.length;
+        if (bufferSize + recordSize > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferSize + recordSize));
+        }
+        ByteBuffer.wrap(buffer, bufferSize, recordSize)
+                .putInt(payload.length + 1)
+                .putInt((int) crc.getValue())
+                .put(type)
+                .put(payload);
+        bufferSize += recordSize;
+        segmentBytes += recordSize;
+        return ++appended;
+    }
+
+    /*
+     * Makes the record with the given sequence number durable as far as the policy requires.
+     */
+    void commit(long sequence) throws IOException {
+        if (policy == FsyncPolicy.INTERVAL || durable >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable < sequence) {
+                flush(policy == FsyncPolicy.ALWAYS);
+            }
+        }
+    }
+
+    void sync() throws IOException {
+        synchronized (syncLock) {
+            flush(true);
+        }
+    }
+
+    /*
+     * Forces the current segment and starts a new one; returns the new segment number.
+     * The caller must make sure no appends race with the roll.
+     */
+    long roll() throws IOException {
+        synchronized (syncLock) {
+            flush(true);
+            synchronized (this) {
+                channel.close();
+                segment++;
+                channel = openSegment(segment);
+                segmentBytes = 0;
+                return segment;
+            }
+        }
+    }
+
+    @Contract(pure = true)
+    synchronized long segmentBytes() {
+        return segmentBytes;
+    }
+
+    void deleteSegmentsBefore(long segment) throws IOException {
+        for (long existing : segments(directory)) {
+            if (existing < segment) {
+                Files.deleteIfExists(segmentPath(directory, existing));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            try {
+                flush(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void flush(boolean force) throws IOException {
+        byte[] batch;
+        int size;
+        long upTo;
+        FileChannel target;
+        synchronized (this) {
+            if (failure != null) {
+                throw new IOException("Write-ahead log failed", failure);
+            }
+            batch = buffer;
+            buffer = flushBuffer;
+            flushBuffer = batch;
+            size = bufferSize;
+            bufferSize = 0;
+            upTo = appended;
+            target = channel;
+        }
+        try {
+            ByteBuffer data = ByteBuffer.wrap(batch, 0, size);
+            while (data.hasRemaining()) {
+                target.write(data);
+            }
+            if (force) {
+                target.force(false);
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+            }
+            throw e;
+        }
+        durable = upTo;
+    }
+
+    private @NotNull FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    interface RecordHandler {
+        void accept(byte type, @NotNull DataInput in) throws IOException;
+    }
+
+    /*
+     * Replays every intact record of the segment; returns the number of records replayed. A
+     * bad record in a segment that is not the `last` one is a gap in the log rather than a
+     * torn write, and fails the replay without truncating anything.
+     */
+    static long replay(@NotNull Path directory, long segment, boolean last,
+                       @NotNull RecordHandler handler) throws IOException {
+        Path path = segmentPath(directory, segment);
+        long records = 0;
+        long validLength = 0;
+        long size = Files.size(path);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] record;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    // a torn header can claim far more than the file holds
+                    if (length < 1 || length > size - validLength - (HEADER_SIZE - 1)) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                handler.accept(record[0], new DataInputStream(new ByteArrayInputStream(record, 1, length - 1)));
+                validLength += HEADER_SIZE - 1 + length;
+                records++;
+            }
+        }
+        if (validLength < size) {
+            if (!last) {
+                throw new IOException("Corrupt record at offset " + validLength + " of " + path
+                        + ", which is followed by later segments");
+            }
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(validLength);
+                truncate.force(true);
+            }
+        }
+        return records;
+    }
+
+    /*
+     * Makes file creations, renames and deletions in `directory` durable.
+     */
+    static void forceDirectory(@NotNull Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    static @NotNull List<Long> segments(@NotNull Path directory) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                result.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static @NotNull Path segmentPath(@NotNull Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,101 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompressedGraphTest {
+    @Test
+    public void matchesSourceGraphTest() {
+        int[] pairs = GraphGenerators.erdosRenyi(300, 1500, 3);
+        for (Graph<Integer, Integer> source : List.<Graph<Integer, Integer>>of(
+                Graphs.directedConcurrentGraph(), Graphs.undirectedConcurrentGraph(), Graphs.undirectedShardedGraph(3))) {
+            GraphGenerators.load(source, pairs);
+            source.addEdge(-1, 7, 7);
+            source.addVertex(1000);
+            CompressedGraph<Integer, Integer> compressed = CompressedGraph.of(source);
+
+            assertEquals(source.isDirectedGraph(), compressed.isDirectedGraph());
+            assertEquals(source.getVertexCount(), compressed.getVertexCount());
+            assertEquals(source.getEdgeCount(), compressed.getEdgeCount());
+            assertEquals(new HashSet<>(source.getEdges()), new HashSet<>(compressed.getEdges()));
+            for (Integer edge : source.getEdges()) {
+                assertEquals(new HashSet<>(source.incidentVertices(edge)), new HashSet<>(compressed.incidentVertices(edge)));
+            }
+            for (Integer vertex : source.getVertices()) {
+                assertTrue(compressed.isVertex(vertex));
+                assertEquals(new HashSet<>(source.incidentEdges(vertex)), new HashSet<>(compressed.incidentEdges(vertex)));
+                for (int other = 0; other < 300; other += 13) {
+                    assertEquals(source.getEdge(vertex, other), compressed.getEdge(vertex, other));
+                    assertEquals(source.isConnection(vertex, other), compressed.isConnection(vertex, other));
+                    assertEquals(source.getPath(vertex, other).size(), compressed.getPath(vertex, other).size());
+                }
+            }
+            assertTrue(compressed.getPath(1000, 1).isEmpty());
+            assertFalse(compressed.isEdge(-2));
+            assertTrue(compressed.incidentVertices(-2).isEmpty());
+        }
+    }
+
+    @Test
+    public void pathTest() {
+        Graph<Integer, String> source = Graphs.directedConcurrentGraph();
+        source.addEdge("a", 1, 2);
+        source.addEdge("b", 2, 3);
+        source.addEdge("c", 3, 1);
+        source.addEdge("d", 1, 3);
+        source.addEdge("e", 3, 4);
+        CompressedGraph<Integer, String> compressed = CompressedGraph.of(source);
+
+        assertEquals(List.of(1, 3, 4), compressed.getPath(1, 4));
+        assertEquals(List.of(1, 3, 1), compressed.getPath(1, 1));
+        assertEquals(List.of(1, 2, 3, 4), compressed.getPath(1, 4, v -> true, e -> !e.equals("d"), 3));
+        assertTrue(compressed.getPath(1, 4, v -> true, e -> !e.equals("d"), 2).isEmpty());
+        assertTrue(compressed.getPath(1, 4, v -> v != 3, e -> true, 10).isEmpty());
+        assertTrue(compressed.getPath(4, 1).isEmpty());
+    }
+
+    @Test
+    public void compressionTest() {
+        Graph<Integer, Integer> grid = Graphs.undirectedConcurrentGraph();
+        GraphGenerators.load(grid, GraphGenerators.grid(100, 100));
+        CompressedGraph<Integer, Integer> compressed = CompressedGraph.of(grid);
+
+        int arcs = 2 * compressed.getEdgeCount();
+        assertTrue(compressed.adjacencyBytes() < 2 * arcs);
+        assertEquals(List.of(0, 1), compressed.getPath(0, 1));
+        // every undirected edge also stores the id of its arc from the higher endpoint
+        assertTrue(compressed.totalBytes() >= compressed.adjacencyBytes() + 4L * compressed.getEdgeCount());
+    }
+
+    @Test
+    public void hubEdgesTest() {
+        Graph<Integer, Integer> star = Graphs.undirectedConcurrentGraph();
+        for (int leaf = 1; leaf <= 500; leaf++) {
+            star.addEdge(leaf, 0, leaf);
+            star.addEdge(1000 + leaf, leaf, leaf % 500 + 1);
+        }
+        CompressedGraph<Integer, Integer> compressed = CompressedGraph.of(star);
+        for (int leaf = 1; leaf <= 500; leaf++) {
+            assertEquals(new HashSet<>(star.incidentEdges(leaf)), new HashSet<>(compressed.incidentEdges(leaf)));
+            assertEquals(Integer.valueOf(leaf), compressed.getEdge(leaf, 0));
+        }
+        assertEquals(List.of(250, 0, 1), compressed.getPath(250, 1, v -> true, e -> e < 1000, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multigraphTest() {
+        Graph<Integer, String> multigraph = Graphs.directedMultigraph();
+        multigraph.addEdge("a", 1, 2);
+        multigraph.addEdge("b", 1, 2);
+        CompressedGraph.of(multigraph);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableTest() {
+        CompressedGraph.of(Graphs.<Integer, Integer>directedConcurrentGraph()).addVertex(1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DagGraphTest {
+    @Test
+    public void rejectsCyclesTest() {
+        DagGraph<String, Integer> graph = Graphs.directedAcyclicGraph();
+        assertTrue(graph.addEdge(1, "c", "d"));
+        assertTrue(graph.addEdge(2, "b", "c"));
+        assertTrue(graph.addEdge(3, "a", "b"));
+        assertFalse(graph.addEdge(4, "d", "a"));
+        assertFalse(graph.addEdge(5, "a", "a"));
+        assertFalse(graph.isVertex("e") || graph.isEdge(4));
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(List.of("a", "b", "c", "d"), graph.topologicalOrder());
+        assertEquals(0, graph.topologicalIndex("a"));
+        assertEquals(-1, graph.topologicalIndex("e"));
+
+        assertTrue(graph.removeEdge(2));
+        assertTrue(graph.addEdge(4, "d", "a"));
+        verifyOrder(graph);
+        assertFalse(graph.addEdge(2, "b", "c"));
+
+        assertTrue(graph.removeVertex("a"));
+        assertEquals(3, graph.topologicalOrder().size());
+        assertTrue(graph.addEdge(2, "b", "c"));
+        verifyOrder(graph);
+    }
+
+    @Test
+    public void randomInsertionTest() {
+        Random rnd = new Random(11);
+        DagGraph<Integer, Integer> graph = Graphs.directedAcyclicGraph();
+        for (int edge = 0; edge < 2000; edge++) {
+            int from = rnd.nextInt(60);
+            int to = rnd.nextInt(60);
+            if (rnd.nextInt(20) == 0) {
+                assertEquals(graph.isVertex(from), graph.removeVertex(from));
+                continue;
+            }
+            boolean closesCycle = from == to || (graph.isVertex(to) && !graph.getPath(to, from).isEmpty());
+            boolean duplicate = graph.isConnection(from, to);
+            assertEquals(!closesCycle && !duplicate, graph.addEdge(edge, from, to));
+            verifyOrder(graph);
+        }
+    }
+
+    private static <V, E> void verifyOrder(DagGraph<V, E> graph) {
+        List<V> order = graph.topologicalOrder();
+        assertEquals(graph.getVertexCount(), order.size());
+        assertEquals(new HashSet<>(graph.getVertices()), new HashSet<>(order));
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, graph.topologicalIndex(order.get(i)));
+        }
+        for (E edge : graph.getEdges()) {
+            List<V> ends = graph.incidentVertices(edge);
+            assertTrue(graph.topologicalIndex(ends.get(0)) < graph.topologicalIndex(ends.get(1)));
+        }
+    }
+}
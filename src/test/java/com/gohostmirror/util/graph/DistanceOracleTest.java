@@ -0,0 +1,86 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistanceOracleTest {
+    @Test
+    public void boundsTest() {
+        Graph<Integer, Integer> directed = Graphs.directedConcurrentGraph();
+        GraphGenerators.load(directed, GraphGenerators.erdosRenyi(200, 500, 5));
+        verifyBounds(directed, DistanceOracle.build(directed, 8), new Random(1));
+
+        Graph<Integer, Integer> undirected = Graphs.undirectedConcurrentGraph();
+        GraphGenerators.load(undirected, GraphGenerators.powerLaw(300, 2, 5));
+        verifyBounds(undirected, DistanceOracle.build(undirected, 4), new Random(2));
+    }
+
+    @Test
+    public void landmarkIsExactTest() {
+        Graph<Integer, Integer> grid = Graphs.undirectedConcurrentGraph();
+        GraphGenerators.load(grid, GraphGenerators.grid(20, 20));
+        DistanceOracle<Integer> oracle = DistanceOracle.build(grid, 3);
+
+        List<Integer> landmarks = oracle.landmarks();
+        assertEquals(3, landmarks.size());
+        int landmark = landmarks.get(0);
+        for (int vertex = 0; vertex < 400; vertex += 17) {
+            int distance = distance(grid, landmark, vertex);
+            assertEquals(distance, oracle.upperBound(landmark, vertex));
+            assertEquals(distance, oracle.lowerBound(landmark, vertex));
+        }
+        assertEquals(DistanceOracle.UNREACHABLE, oracle.upperBound(0, 1000));
+        assertEquals(0, oracle.lowerBound(0, 1000));
+    }
+
+    @Test
+    public void edgeAddedTest() throws Exception {
+        Graph<Integer, Integer> chain = Graphs.directedConcurrentGraph();
+        for (int i = 0; i < 50; i++) {
+            chain.addEdge(i, i, i + 1);
+        }
+        chain.addEdge(50, 60, 0);
+        chain.addEdge(51, 10, 61);
+        DistanceOracle<Integer> oracle = DistanceOracle.build(chain, 2);
+        assertEquals(DistanceOracle.UNREACHABLE, oracle.lowerBound(50, 0));
+
+        chain.addEdge(100, 40, 5);
+        oracle.edgeAdded(40, 5);
+        chain.addEdge(101, 2, 45);
+        oracle.edgeAdded(2, 45);
+        verifyBounds(chain, oracle, new Random(3));
+        assertTrue(oracle.upperBound(0, 50) <= 8);
+
+        chain.addEdge(102, 50, 200);
+        oracle.edgeAdded(50, 200);
+        assertEquals(DistanceOracle.UNREACHABLE, oracle.upperBound(0, 200));
+        oracle.refreshAsync().get();
+        assertTrue(oracle.upperBound(0, 200) <= 9);
+        verifyBounds(chain, oracle, new Random(4));
+    }
+
+    private static void verifyBounds(Graph<Integer, Integer> graph, DistanceOracle<Integer> oracle, Random rnd) {
+        List<Integer> vertices = List.copyOf(graph.getVertices());
+        for (int i = 0; i < 500; i++) {
+            int from = vertices.get(rnd.nextInt(vertices.size()));
+            int to = vertices.get(rnd.nextInt(vertices.size()));
+            int distance = distance(graph, from, to);
+            int lower = oracle.lowerBound(from, to);
+            int upper = oracle.upperBound(from, to);
+            assertTrue(lower + " > " + distance, lower <= distance);
+            assertTrue(upper + " < " + distance, upper >= distance);
+        }
+    }
+
+    private static int distance(Graph<Integer, Integer> graph, int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        List<Integer> path = graph.getPath(from, to);
+        return path.isEmpty() ? DistanceOracle.UNREACHABLE : path.size() - 1;
+    }
+}
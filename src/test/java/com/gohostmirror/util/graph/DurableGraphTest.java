@@ -0,0 +1,243 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DurableGraphTest {
+    static final GraphCodec<Integer> INT_CODEC = new GraphCodec<>() {
+        @Override
+        public void write(@NotNull DataOutput out, @NotNull Integer value) throws IOException {
+            out.writeInt(value);
+        }
+
+        @Override
+        public @NotNull Integer read(@NotNull DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    static final GraphCodec<String> STRING_CODEC = new GraphCodec<>() {
+        @Override
+        public void write(@NotNull DataOutput out, @NotNull String value) throws IOException {
+            out.writeUTF(value);
+        }
+
+        @Override
+        public @NotNull String read(@NotNull DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recoveryTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path policyDirectory = directory.resolve(policy.name());
+            try (DurableGraph<Integer, String> graph = open(policyDirectory, Graphs.directedConcurrentGraph(), policy)) {
+                assemblyGraph(graph, 0, 10);
+            }
+            try (DurableGraph<Integer, String> graph = open(policyDirectory, Graphs.directedConcurrentGraph(), policy)) {
+                verifyGraph(graph, 10);
+            }
+        }
+    }
+
+    @Test
+    public void removalRecoveryTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            assertTrue(graph.addEdge("a", 1, 2));
+            assertTrue(graph.addEdge("b", 2, 3));
+            assertTrue(graph.addEdge("c", 3, 1));
+            assertTrue(graph.removeEdge("a"));
+            assertFalse(graph.removeEdge("a"));
+            assertTrue(graph.removeVertex(3));
+        }
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            assertEquals(2, graph.getVertexCount());
+            assertEquals(0, graph.getEdgeCount());
+            assertFalse(graph.isVertex(3));
+            assertTrue(graph.addEdge("a", 2, 1));
+        }
+    }
+
+    @Test
+    public void checkpointTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.undirectedConcurrentGraph(), FsyncPolicy.NEVER)) {
+            assemblyGraph(graph, 0, 10);
+            graph.checkpoint();
+            assemblyGraph(graph, 10, 20);
+            graph.checkpoint();
+            assemblyGraph(graph, 20, 30);
+        }
+        assertEquals(1, WriteAheadLog.segments(directory).size());
+
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.undirectedConcurrentGraph(), FsyncPolicy.NEVER)) {
+            verifyGraph(graph, 30);
+            assertFalse(graph.addEdge("e5", 5, 6));
+            assertFalse(graph.addEdge("x", 6, 5));
+        }
+    }
+
+    @Test
+    public void tornRecordTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            assemblyGraph(graph, 0, 10);
+        }
+        List<Long> segments = WriteAheadLog.segments(directory);
+        Path last = directory.resolve(String.format("wal-%020d.log", segments.get(segments.size() - 1)));
+        Files.write(last, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            verifyGraph(graph, 10);
+            assertTrue(graph.addEdge("e10", 10, 11));
+        }
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            verifyGraph(graph, 11);
+        }
+    }
+
+    @Test
+    public void corruptLengthTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            assemblyGraph(graph, 0, 10);
+        }
+        List<Long> segments = WriteAheadLog.segments(directory);
+        Path last = directory.resolve(String.format("wal-%020d.log", segments.get(segments.size() - 1)));
+        long size = Files.size(last);
+        // a header asking for almost 2 GB, followed by a few garbage bytes
+        Files.write(last, new byte[]{0x7f, -1, -1, -16, 0, 0, 0, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            verifyGraph(graph, 10);
+        }
+        assertEquals(size, Files.size(last));
+    }
+
+    @Test
+    public void corruptSegmentTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            assemblyGraph(graph, 0, 10);
+        }
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS)) {
+            assemblyGraph(graph, 10, 20);
+        }
+        Path first = directory.resolve(String.format("wal-%020d.log", WriteAheadLog.segments(directory).get(0)));
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(first, bytes);
+
+        try {
+            open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.ALWAYS).close();
+            fail("a gap in the log must not be replayed over");
+        } catch (IOException expected) {
+            // the damaged segment is left for inspection
+        }
+        assertEquals(bytes.length, Files.size(first));
+    }
+
+    @Test
+    public void corruptCheckpointTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableGraph<Integer, String> graph = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.NEVER)) {
+            assemblyGraph(graph, 0, 10);
+            graph.checkpoint();
+        }
+        Path checkpoint;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "checkpoint-*.ckpt")) {
+            checkpoint = stream.iterator().next();
+        }
+        byte[] bytes = Files.readAllBytes(checkpoint);
+        bytes[bytes.length - 12] ^= 1;
+        Files.write(checkpoint, bytes);
+
+        Graph<Integer, String> graph = Graphs.directedConcurrentGraph();
+        try {
+            DurableGraph.open(directory, graph, INT_CODEC, STRING_CODEC, FsyncPolicy.NEVER, 10, 0).close();
+            fail("a corrupt checkpoint must be rejected");
+        } catch (IOException expected) {
+            assertEquals(0, graph.getVertexCount());
+        }
+    }
+
+    @Test
+    public void checkpointFailureTest() throws IOException, InterruptedException {
+        // fails only on the background thread, so logging works and checkpoints do not
+        GraphCodec<Integer> failingCodec = new GraphCodec<>() {
+            @Override
+            public void write(@NotNull DataOutput out, @NotNull Integer value) throws IOException {
+                if (Thread.currentThread().getName().startsWith("durable-graph-")) {
+                    throw new IOException("disk full");
+                }
+                INT_CODEC.write(out, value);
+            }
+
+            @Override
+            public @NotNull Integer read(@NotNull DataInput in) throws IOException {
+                return INT_CODEC.read(in);
+            }
+        };
+        Path directory = folder.getRoot().toPath();
+        DurableGraph<Integer, String> graph = DurableGraph.open(directory, Graphs.directedConcurrentGraph(),
+                failingCodec, STRING_CODEC, FsyncPolicy.NEVER, 10, 1);
+        IOException reported = null;
+        for (int i = 0; i < 100 && reported == null; i++) {
+            assertTrue(graph.addEdge("e" + i, i, i + 1));
+            try {
+                graph.sync();
+                Thread.sleep(10);
+            } catch (IOException e) {
+                reported = e;
+            }
+        }
+        assertNotNull(reported);
+        assertEquals("disk full", reported.getCause().getMessage());
+        try {
+            graph.close();
+        } catch (IOException e) {
+            // a retry may have failed again
+        }
+        try (DurableGraph<Integer, String> reopened = open(directory, Graphs.directedConcurrentGraph(), FsyncPolicy.NEVER)) {
+            assertTrue(reopened.getEdgeCount() > 0);
+        }
+    }
+
+    private static DurableGraph<Integer, String> open(Path directory, Graph<Integer, String> graph, FsyncPolicy policy) throws IOException {
+        return DurableGraph.open(directory, graph, INT_CODEC, STRING_CODEC, policy, 10, 0);
+    }
+
+    private static void assemblyGraph(Graph<Integer, String> graph, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertTrue(graph.addEdge("e" + i, i, i + 1));
+            assertFalse(graph.addEdge("e" + i, i + 1, i + 2));
+        }
+        assertTrue(graph.addVertex(-to));
+    }
+
+    private static void verifyGraph(Graph<Integer, String> graph, int edgeCount) {
+        assertEquals(edgeCount, graph.getEdgeCount());
+        for (int i = 0; i < edgeCount; i++) {
+            assertEquals("e" + i, graph.getEdge(i, i + 1));
+        }
+        assertTrue(graph.isVertex(-10));
+        assertEquals(edgeCount - 1, graph.getPath(0, edgeCount).size() - 2);
+    }
+}
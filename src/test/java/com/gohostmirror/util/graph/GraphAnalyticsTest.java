@@ -0,0 +1,138 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GraphAnalyticsTest {
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    public void compactGraphTest() {
+        Graph<Integer, Object> graph = Graphs.directedConcurrentGraph();
+        assertTrue(graph.addEdge(new Object(), 1, 3));
+        assertTrue(graph.addEdge(new Object(), 1, 2));
+        assertTrue(graph.addEdge(new Object(), 3, 1));
+        assertTrue(graph.addVertex(4));
+
+        CompactGraph<Integer> compact = CompactGraph.of(graph);
+        assertEquals(4, compact.getVertexCount());
+        assertEquals(3, compact.getArcCount());
+        assertEquals(-1, compact.id(5));
+
+        int one = compact.id(1);
+        assertEquals(2, compact.degree(one));
+        int[] neighbours = compact.neighbours(one);
+        assertTrue(neighbours[0] < neighbours[1]);
+        assertEquals(1, compact.transpose().degree(one));
+        assertEquals(0, compact.degree(compact.id(4)));
+        assertSame(compact, compact.transpose().transpose());
+    }
+
+    @Test
+    public void pageRankTest() {
+        Graph<Integer, Object> cycle = Graphs.directedConcurrentGraph();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cycle.addEdge(new Object(), i, (i + 1) % 5));
+        }
+        double[] rank = GraphAnalytics.pageRank(CompactGraph.of(cycle));
+        for (double score : rank) {
+            assertEquals(0.2, score, EPSILON);
+        }
+
+        Graph<Integer, Object> star = Graphs.directedConcurrentGraph();
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(star.addEdge(new Object(), i, 0));
+        }
+        CompactGraph<Integer> compact = CompactGraph.of(star);
+        rank = GraphAnalytics.pageRank(compact);
+        double sum = 0;
+        for (int id = 0; id < rank.length; id++) {
+            sum += rank[id];
+            if (compact.vertex(id) != 0) {
+                assertTrue(rank[compact.id(0)] > rank[id]);
+            }
+        }
+        assertEquals(1, sum, EPSILON);
+    }
+
+    @Test
+    public void centralityTest() {
+        Graph<Integer, Object> path = Graphs.undirectedConcurrentGraph();
+        assertTrue(path.addEdge(new Object(), 1, 2));
+        assertTrue(path.addEdge(new Object(), 2, 3));
+        CompactGraph<Integer> compact = CompactGraph.of(path);
+
+        double[] degree = GraphAnalytics.degreeCentrality(compact);
+        assertEquals(1d, degree[compact.id(2)], EPSILON);
+        assertEquals(0.5, degree[compact.id(1)], EPSILON);
+
+        double[] closeness = GraphAnalytics.closenessCentrality(compact);
+        assertEquals(1d, closeness[compact.id(2)], EPSILON);
+        assertEquals(2d / 3, closeness[compact.id(1)], EPSILON);
+        assertEquals(2d / 3, closeness[compact.id(3)], EPSILON);
+    }
+
+    @Test
+    public void triangleTest() {
+        Graph<Integer, Object> clique = Graphs.undirectedConcurrentGraph();
+        for (int i = 0; i < 5; i++) {
+            for (int j = i + 1; j < 5; j++) {
+                assertTrue(clique.addEdge(new Object(), i, j));
+            }
+        }
+        assertTrue(clique.addEdge(new Object(), 0, 0));
+        assertTrue(clique.addEdge(new Object(), 4, 5));
+        CompactGraph<Integer> compact = CompactGraph.of(clique);
+        long[] triangles = GraphAnalytics.triangleCounts(compact);
+        double[] clustering = GraphAnalytics.clusteringCoefficients(compact);
+        assertEquals(6, triangles[compact.id(0)]);
+        assertEquals(1d, clustering[compact.id(0)], EPSILON);
+        assertEquals(0.6, clustering[compact.id(4)], EPSILON);
+        assertEquals(0d, clustering[compact.id(5)], EPSILON);
+        assertEquals(30d / 34, GraphAnalytics.transitivity(compact), EPSILON);
+
+        Graph<Integer, Object> directed = Graphs.directedConcurrentGraph();
+        assertTrue(directed.addEdge(new Object(), 1, 2));
+        assertTrue(directed.addEdge(new Object(), 2, 1));
+        assertTrue(directed.addEdge(new Object(), 2, 3));
+        assertTrue(directed.addEdge(new Object(), 1, 3));
+        assertEquals(1d, GraphAnalytics.transitivity(CompactGraph.of(directed)), EPSILON);
+    }
+
+    @Test
+    public void triangleMatchesPairwiseTest() {
+        for (Graph<Integer, Integer> graph : List.<Graph<Integer, Integer>>of(
+                Graphs.undirectedConcurrentGraph(), Graphs.directedConcurrentGraph())) {
+            GraphGenerators.load(graph, GraphGenerators.powerLaw(400, 6, 17));
+            CompactGraph<Integer> compact = CompactGraph.of(graph, VertexOrder.DEGREE);
+            long[] triangles = GraphAnalytics.triangleCounts(compact);
+            double[] clustering = GraphAnalytics.clusteringCoefficients(compact);
+            for (int id = 0; id < compact.getVertexCount(); id++) {
+                Integer vertex = compact.vertex(id);
+                List<Integer> neighbours = new ArrayList<>();
+                for (Integer other : graph.getVertices()) {
+                    if (!other.equals(vertex) && (graph.isConnection(vertex, other) || graph.isConnection(other, vertex))) {
+                        neighbours.add(other);
+                    }
+                }
+                long expected = 0;
+                for (int i = 0; i < neighbours.size(); i++) {
+                    for (int j = i + 1; j < neighbours.size(); j++) {
+                        Integer a = neighbours.get(i);
+                        Integer b = neighbours.get(j);
+                        if (graph.isConnection(a, b) || graph.isConnection(b, a)) {
+                            expected++;
+                        }
+                    }
+                }
+                assertEquals(expected, triangles[id]);
+                int d = neighbours.size();
+                assertEquals(d < 2 ? 0 : 2d * expected / (d * (d - 1)), clustering[id], EPSILON);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.gohostmirror.util.graph;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class GraphEventsTest {
+    @Test
+    public void recordsEventsTest() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.gohostmirror.graph.PathSearch");
+            recording.enable("com.gohostmirror.graph.WriteLockWait").withThreshold(Duration.ofMillis(10));
+            recording.enable("com.gohostmirror.graph.BulkLoad");
+            recording.start();
+
+            Graph<Integer, Integer> graph = Graphs.directedConcurrentGraph(
+                    IntStream.range(0, 10).mapToObj(i -> EdgeTriple.of(i, i, i + 1)));
+            assertEquals(11, graph.getPath(0, 10).size());
+            assertTrue(graph.getPath(10, 0).isEmpty());
+
+            CountDownLatch locked = new CountDownLatch(1);
+            Thread holder = new Thread(() -> ((AbstractConcurrentGraph<Integer, Integer>) graph).writeBatch(() -> {
+                locked.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignore) {}
+            }));
+            holder.start();
+            locked.await();
+            graph.addEdge(100, 10, 11);
+            holder.join();
+
+            recording.stop();
+            Path file = Files.createTempFile("graph-events", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        List<RecordedEvent> paths = ofType(events, "com.gohostmirror.graph.PathSearch");
+        assertEquals(2, paths.size());
+        RecordedEvent found = paths.get(0);
+        assertEquals("0", found.getString("source"));
+        assertEquals("10", found.getString("target"));
+        assertEquals(10, found.getInt("pathLength"));
+        assertTrue(found.getInt("visited") >= 9 && found.getInt("visited") <= 11);
+        assertEquals(-1, paths.get(1).getInt("pathLength"));
+
+        List<RecordedEvent> waits = ofType(events, "com.gohostmirror.graph.WriteLockWait");
+        assertEquals(1, waits.size());
+        assertEquals("DirectedConcurrentGraph", waits.get(0).getString("graph"));
+        assertTrue(waits.get(0).getDuration().toMillis() >= 10);
+
+        List<RecordedEvent> loads = ofType(events, "com.gohostmirror.graph.BulkLoad");
+        assertEquals(1, loads.size());
+        assertEquals("stream", loads.get(0).getString("source"));
+        assertEquals(10, loads.get(0).getInt("edges"));
+        assertEquals(11, loads.get(0).getInt("vertices"));
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
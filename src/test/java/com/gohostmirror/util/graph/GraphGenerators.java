@@ -0,0 +1,80 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Synthetic topologies for benchmarks. Each generator returns edges as a flat array of
+ * vertex pairs: edge i connects pairs[2 * i] and pairs[2 * i + 1]. Vertices are 0 .. n-1.
+ */
+final class GraphGenerators {
+    private GraphGenerators() {
+    }
+
+    /*
+     * G(n, m): `edgeCount` uniformly random pairs (duplicates are rejected later by addEdge).
+     */
+    static @NotNull int[] erdosRenyi(int vertexCount, int edgeCount, long seed) {
+        Random rnd = new Random(seed);
+        int[] pairs = new int[edgeCount * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = rnd.nextInt(vertexCount);
+        }
+        return pairs;
+    }
+
+    /*
+     * Barabasi-Albert preferential attachment: every new vertex links to `degree` existing
+     * vertices picked proportionally to their degree, giving a power-law degree distribution.
+     */
+    static @NotNull int[] powerLaw(int vertexCount, int degree, long seed) {
+        Random rnd = new Random(seed);
+        int[] pairs = new int[Math.max(0, vertexCount - degree) * degree * 2];
+        int size = 0;
+        for (int vertex = degree; vertex < vertexCount; vertex++) {
+            for (int i = 0; i < degree; i++) {
+                int target = vertex == degree ? i : pairs[rnd.nextInt(size)];
+                pairs[size++] = vertex;
+                pairs[size++] = target;
+            }
+        }
+        return Arrays.copyOf(pairs, size);
+    }
+
+    /*
+     * width x height lattice with right and down links; vertex id = row * width + column.
+     */
+    static @NotNull int[] grid(int width, int height) {
+        int[] pairs = new int[(width - 1) * height * 2 + width * (height - 1) * 2];
+        int size = 0;
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                int vertex = row * width + column;
+                if (column + 1 < width) {
+                    pairs[size++] = vertex;
+                    pairs[size++] = vertex + 1;
+                }
+                if (row + 1 < height) {
+                    pairs[size++] = vertex;
+                    pairs[size++] = vertex + width;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /*
+     * Adds every pair as an edge whose value is its index; returns the number accepted.
+     */
+    static int load(@NotNull Graph<Integer, Integer> graph, @NotNull int[] pairs) {
+        int added = 0;
+        for (int i = 0; i < pairs.length / 2; i++) {
+            if (graph.addEdge(i, pairs[2 * i], pairs[2 * i + 1])) {
+                added++;
+            }
+        }
+        return added;
+    }
+}
@@ -18,6 +18,10 @@ class GraphHelper<V, E> {
         }
     }
 
+    GraphHelper(@NotNull Graph<V, E> graph) {
+        this.graph = graph;
+    }
+
     GraphHelper<V, E> vertexCount(int count) {
         assertEquals(count, graph.getVertexCount());
         return this;
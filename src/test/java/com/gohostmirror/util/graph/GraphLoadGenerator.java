@@ -0,0 +1,218 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * Mixed read/write load against a pre-populated graph. Worker threads start together on a
+ * latch (as in GraphTest.concurrentGraphTest), run for a fixed duration and record per
+ * operation latencies; results are printed as one JSON object per operation.
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:<jetbrains annotations jar> \
+ *       com.gohostmirror.util.graph.GraphLoadGenerator graph=sharded:16 generator=powerlaw \
+ *       vertices=100000 degree=8 threads=8 duration=30 writeRatio=0.05 pathRatio=0.1
+ *
+ * graph: concurrent | undirected | sharded:N | undirected-sharded:N
+ * generator: er | powerlaw | grid
+ */
+public class GraphLoadGenerator {
+    enum Operation {
+        ADD_EDGE("addEdge"),
+        GET_PATH("getPath"),
+        IS_CONNECTION("isConnection"),
+        INCIDENT_EDGES("incidentEdges");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    static class Config {
+        String graph = "concurrent";
+        String generator = "er";
+        int vertices = 10_000;
+        int degree = 8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double durationSeconds = 10;
+        double writeRatio = 0.1;
+        double pathRatio = 0.1;
+        long seed = 42;
+
+        static @NotNull Config parse(@NotNull String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (split < 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                String value = arg.substring(split + 1);
+                switch (arg.substring(0, split)) {
+                    case "graph": config.graph = value; break;
+                    case "generator": config.generator = value; break;
+                    case "vertices": config.vertices = Integer.parseInt(value); break;
+                    case "degree": config.degree = Integer.parseInt(value); break;
+                    case "threads": config.threads = Integer.parseInt(value); break;
+                    case "duration": config.durationSeconds = Double.parseDouble(value); break;
+                    case "writeRatio": config.writeRatio = Double.parseDouble(value); break;
+                    case "pathRatio": config.pathRatio = Double.parseDouble(value); break;
+                    case "seed": config.seed = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return config;
+        }
+    }
+
+    static class Result {
+        final Operation operation;
+        final LatencyHistogram histogram;
+        final double seconds;
+
+        Result(Operation operation, LatencyHistogram histogram, double seconds) {
+            this.operation = operation;
+            this.histogram = histogram;
+            this.seconds = seconds;
+        }
+
+        double throughput() {
+            return histogram.count() / seconds;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Config config = Config.parse(args);
+        print(config, run(config), System.out);
+    }
+
+    static @NotNull List<Result> run(@NotNull Config config) throws InterruptedException {
+        Graph<Integer, Integer> graph = graphSupplier(config.graph).get();
+        int[] pairs = generate(config);
+        GraphGenerators.load(graph, pairs);
+        int vertexBound = Math.max(1, graph.getVertexCount());
+        AtomicInteger nextEdge = new AtomicInteger(pairs.length / 2);
+
+        LatencyHistogram[][] histograms = new LatencyHistogram[config.threads][Operation.values().length];
+        CountDownLatch startLatch = new CountDownLatch(config.threads);
+        CountDownLatch finishLatch = new CountDownLatch(config.threads + 1);
+        long durationNanos = (long) (config.durationSeconds * 1e9);
+        long[] elapsed = new long[config.threads];
+
+        for (int t = 0; t < config.threads; t++) {
+            int thread = t;
+            for (int op = 0; op < Operation.values().length; op++) {
+                histograms[thread][op] = new LatencyHistogram();
+            }
+            new Thread(() -> {
+                Random rnd = ThreadLocalRandom.current();
+                LatencyHistogram[] local = histograms[thread];
+                startLatch.countDown();
+                try {
+                    startLatch.await();
+                } catch (InterruptedException ignore) {}
+
+                long start = System.nanoTime();
+                long deadline = start + durationNanos;
+                long now = start;
+                while (now < deadline) {
+                    Operation operation = pick(rnd, config);
+                    int vertex1 = rnd.nextInt(vertexBound);
+                    int vertex2 = rnd.nextInt(vertexBound);
+                    long begin = System.nanoTime();
+                    switch (operation) {
+                        case ADD_EDGE:
+                            graph.addEdge(nextEdge.getAndIncrement(), vertex1, vertex2);
+                            break;
+                        case GET_PATH:
+                            graph.getPath(vertex1, vertex2);
+                            break;
+                        case IS_CONNECTION:
+                            graph.isConnection(vertex1, vertex2);
+                            break;
+                        case INCIDENT_EDGES:
+                            graph.incidentEdges(vertex1).size();
+                            break;
+                    }
+                    now = System.nanoTime();
+                    local[operation.ordinal()].record(now - begin);
+                }
+                elapsed[thread] = now - start;
+
+                finishLatch.countDown();
+                try {
+                    finishLatch.await();
+                } catch (InterruptedException ignore) {}
+            }).start();
+        }
+        finishLatch.countDown();
+        finishLatch.await();
+
+        double seconds = Arrays.stream(elapsed).max().orElse(durationNanos) / 1e9;
+        List<Result> results = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram total = new LatencyHistogram();
+            for (LatencyHistogram[] local : histograms) {
+                total.add(local[operation.ordinal()]);
+            }
+            results.add(new Result(operation, total, seconds));
+        }
+        return results;
+    }
+
+    static void print(@NotNull Config config, @NotNull List<Result> results, @NotNull PrintStream out) {
+        for (Result result : results) {
+            out.printf(Locale.ROOT,
+                    "{\"graph\":\"%s\",\"generator\":\"%s\",\"vertices\":%d,\"degree\":%d,\"threads\":%d," +
+                    "\"writeRatio\":%s,\"pathRatio\":%s,\"operation\":\"%s\",\"count\":%d,\"throughput\":%.1f," +
+                    "\"p50_ns\":%d,\"p99_ns\":%d,\"p999_ns\":%d,\"max_ns\":%d}%n",
+                    config.graph, config.generator, config.vertices, config.degree, config.threads,
+                    config.writeRatio, config.pathRatio, result.operation.label, result.histogram.count(),
+                    result.throughput(), result.histogram.percentile(0.5), result.histogram.percentile(0.99),
+                    result.histogram.percentile(0.999), result.histogram.max());
+        }
+    }
+
+    private static @NotNull Operation pick(@NotNull Random rnd, @NotNull Config config) {
+        if (rnd.nextDouble() < config.writeRatio) {
+            return Operation.ADD_EDGE;
+        }
+        if (rnd.nextDouble() < config.pathRatio) {
+            return Operation.GET_PATH;
+        }
+        return rnd.nextBoolean() ? Operation.IS_CONNECTION : Operation.INCIDENT_EDGES;
+    }
+
+    private static @NotNull int[] generate(@NotNull Config config) {
+        switch (config.generator) {
+            case "er":
+                return GraphGenerators.erdosRenyi(config.vertices, config.vertices * config.degree, config.seed);
+            case "powerlaw":
+                return GraphGenerators.powerLaw(config.vertices, config.degree, config.seed);
+            case "grid":
+                int width = (int) Math.ceil(Math.sqrt(config.vertices));
+                return GraphGenerators.grid(width, Math.max(1, config.vertices / width));
+            default:
+                throw new IllegalArgumentException("Unknown generator: " + config.generator);
+        }
+    }
+
+    static @NotNull Supplier<Graph<Integer, Integer>> graphSupplier(@NotNull String name) {
+        String[] parts = name.split(":");
+        int shards = parts.length > 1 ? Integer.parseInt(parts[1]) : 16;
+        switch (parts[0]) {
+            case "concurrent": return Graphs::directedConcurrentGraph;
+            case "undirected": return Graphs::undirectedConcurrentGraph;
+            case "sharded": return () -> Graphs.directedShardedGraph(shards);
+            case "undirected-sharded": return () -> Graphs.undirectedShardedGraph(shards);
+            default: throw new IllegalArgumentException("Unknown graph: " + name);
+        }
+    }
+}
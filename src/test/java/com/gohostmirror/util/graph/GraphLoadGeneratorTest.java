@@ -0,0 +1,47 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GraphLoadGeneratorTest {
+    @Test
+    public void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(10_000, histogram.count());
+        assertEquals(5_000_000, histogram.percentile(0.5), 5_000_000 * 0.04);
+        assertEquals(9_900_000, histogram.percentile(0.99), 9_900_000 * 0.04);
+        assertEquals(10_000_000, histogram.percentile(1));
+    }
+
+    @Test
+    public void generatorsTest() {
+        assertEquals(2 * (3 * 4 + 4 * 3), GraphGenerators.grid(4, 4).length);
+        Graph<Integer, Integer> graph = Graphs.undirectedConcurrentGraph();
+        GraphGenerators.load(graph, GraphGenerators.powerLaw(1000, 3, 1));
+        assertEquals(1000, graph.getVertexCount());
+    }
+
+    @Test
+    public void smokeTest() throws InterruptedException {
+        GraphLoadGenerator.Config config = GraphLoadGenerator.Config.parse(new String[]{
+                "graph=sharded:4", "generator=grid", "vertices=400", "threads=2", "duration=0.2", "writeRatio=0.2"});
+        List<GraphLoadGenerator.Result> results = GraphLoadGenerator.run(config);
+        for (GraphLoadGenerator.Result result : results) {
+            assertTrue(result.histogram.count() > 0);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GraphLoadGenerator.print(config, results, new PrintStream(out));
+        String[] lines = out.toString().trim().split("\n");
+        assertEquals(GraphLoadGenerator.Operation.values().length, lines.length);
+        assertTrue(lines[0].startsWith("{\"graph\":\"sharded:4\""));
+    }
+}
@@ -3,18 +3,534 @@ package com.gohostmirror.util.graph;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
 public class GraphTest {
     @Test
     public void pathDirectedGraphTest() {
-        Graph<Integer, Object> graph = Graphs.directedConcurrentGraph();
+        pathDirectedGraphTest(Graphs.directedConcurrentGraph());
+        pathDirectedGraphTest(Graphs.directedShardedGraph(4));
+        pathDirectedGraphTest(Graphs.directedMultigraph());
+    }
+
+    @Test
+    public void pathUndirectedGraphTest() {
+        pathUndirectedGraphTest(Graphs.undirectedConcurrentGraph());
+        pathUndirectedGraphTest(Graphs.undirectedShardedGraph(4));
+    }
+
+    @Test
+    public void addVertexTest() {
+        addVertexTest(new GraphHelper<>(false));
+        addVertexTest(new GraphHelper<>(true));
+        addVertexTest(new GraphHelper<>(Graphs.undirectedShardedGraph(3)));
+        addVertexTest(new GraphHelper<>(Graphs.directedShardedGraph(3)));
+    }
+
+    @Test
+    public void addEdgeTest() {
+        addEdgeTest(new GraphHelper<>(false));
+        addEdgeTest(new GraphHelper<>(true));
+        addEdgeTest(new GraphHelper<>(Graphs.undirectedShardedGraph(3)));
+        addEdgeTest(new GraphHelper<>(Graphs.directedShardedGraph(3)));
+    }
+
+    @Test
+    public void concurrentGraphTest() throws InterruptedException {
+        concurrentGraphTest(Graphs.directedConcurrentGraph());
+        concurrentGraphTest(Graphs.undirectedConcurrentGraph());
+        concurrentGraphTest(Graphs.directedShardedGraph(8));
+        concurrentGraphTest(Graphs.undirectedShardedGraph(8));
+    }
+
+    @Test
+    public void removeDirectedTest() {
+        removeDirectedTest(Graphs.directedConcurrentGraph());
+        removeDirectedTest(Graphs.directedShardedGraph(3));
+        removeDirectedTest(Graphs.directedMultigraph());
+    }
+
+    @Test
+    public void removeUndirectedTest() {
+        removeUndirectedTest(Graphs.undirectedConcurrentGraph());
+        removeUndirectedTest(Graphs.undirectedShardedGraph(3));
+        removeUndirectedTest(Graphs.undirectedMultigraph());
+    }
+
+    @Test
+    public void removeCompactionTest() {
+        removeCompactionTest(Graphs.directedConcurrentGraph());
+        removeCompactionTest(Graphs.undirectedConcurrentGraph());
+        removeCompactionTest(Graphs.directedShardedGraph(4));
+        removeCompactionTest(Graphs.undirectedShardedGraph(4));
+        removeCompactionTest(Graphs.directedMultigraph());
+    }
+
+    @Test
+    public void removeReAddTest() {
+        removeReAddTest(Graphs.directedConcurrentGraph());
+        removeReAddTest(Graphs.directedShardedGraph(3));
+        removeReAddTest(Graphs.directedMultigraph());
+    }
+
+    @Test
+    public void filteredPathTest() {
+        filteredPathTest(Graphs.directedConcurrentGraph());
+        filteredPathTest(Graphs.undirectedConcurrentGraph());
+        filteredPathTest(Graphs.directedShardedGraph(3));
+        filteredPathTest(Graphs.undirectedShardedGraph(3));
+        filteredPathTest(Graphs.undirectedMultigraph());
+    }
+
+    @Test
+    public void subgraphTest() {
+        subgraphTest(Graphs.directedConcurrentGraph());
+        subgraphTest(Graphs.undirectedShardedGraph(3));
+    }
+
+    @Test
+    public void multigraphSubgraphTest() {
+        Graph<String, String> graph = Graphs.undirectedMultigraph();
+        graph.addEdge("e1", "x", "y");
+        graph.addEdge("e2", "x", "y");
+        graph.addEdge("e3", "x", "y");
+        graph.addEdge("e5", "y", "z");
+        graph.removeEdge("e1");
+
+        Graph<String, String> all = Graphs.subgraph(graph, v -> true, e -> true);
+        assertTrue(all.isConnection("x", "y"));
+        assertTrue(all.isConnection("y", "x"));
+        assertTrue(all.isConnection("y", "z"));
+
+        for (String hidden : List.of("e2", "e3")) {
+            Graph<String, String> subgraph = Graphs.subgraph(graph, v -> true, e -> !e.equals(hidden));
+            String other = hidden.equals("e2") ? "e3" : "e2";
+            assertEquals(other, subgraph.getEdge("x", "y"));
+            assertEquals(other, subgraph.getEdge("y", "x"));
+            assertTrue(subgraph.isConnection("x", "y"));
+            assertTrue(subgraph.isConnection("y", "x"));
+        }
+
+        Graph<String, String> none = Graphs.subgraph(graph, v -> true, e -> e.equals("e5"));
+        assertNull(none.getEdge("x", "y"));
+        assertFalse(none.isConnection("x", "y"));
+        assertTrue(none.isConnection("z", "y"));
+    }
+
+    @Test
+    public void parallelBuildTest() {
+        List<EdgeTriple<Integer, Integer>> triples = new ArrayList<>();
+        triples.add(EdgeTriple.of(1, 1, 2));
+        triples.add(EdgeTriple.of(1, 3, 4));
+        triples.add(EdgeTriple.of(2, 3, 4));
+        triples.add(EdgeTriple.of(3, 2, 1));
+        triples.add(EdgeTriple.of(4, 5, 5));
+        Random rnd = new Random(21);
+        for (int i = 0; i < 20_000; i++) {
+            triples.add(EdgeTriple.of(rnd.nextInt(15_000), rnd.nextInt(300), rnd.nextInt(300)));
+        }
+        parallelBuildTest(Graphs.directedConcurrentGraph(), Graphs.directedConcurrentGraph(triples.stream()), triples);
+        parallelBuildTest(Graphs.undirectedConcurrentGraph(), Graphs.undirectedConcurrentGraph(triples.stream()), triples);
+        parallelBuildTest(Graphs.undirectedConcurrentGraph(), Graphs.undirectedConcurrentGraph(triples.subList(0, 100).stream()),
+                triples.subList(0, 100));
+        parallelBuildTest(Graphs.directedMultigraph(),
+                Graphs.directedConcurrentGraph(new MultigraphFactory<>(), triples.stream()), triples);
+        parallelBuildTest(Graphs.undirectedMultigraph(),
+                Graphs.undirectedConcurrentGraph(new MultigraphFactory<>(), triples.stream()), triples);
+
+        Graph<Integer, Integer> small = Graphs.undirectedConcurrentGraph(triples.subList(0, 5).stream());
+        assertEquals(List.of(3, 4), small.incidentVertices(2));
+        assertEquals(List.of(1, 2), small.incidentVertices(1));
+        assertFalse(small.isEdge(3));
+    }
+
+    private void parallelBuildTest(Graph<Integer, Integer> expected, Graph<Integer, Integer> built,
+                                   List<EdgeTriple<Integer, Integer>> triples) {
+        for (EdgeTriple<Integer, Integer> triple : triples) {
+            expected.addEdge(triple.edge(), triple.vertex1(), triple.vertex2());
+        }
+        assertEquals(expected.getVertexCount(), built.getVertexCount());
+        assertEquals(expected.getEdgeCount(), built.getEdgeCount());
+        for (Integer edge : expected.getEdges()) {
+            assertEquals(expected.incidentVertices(edge), built.incidentVertices(edge));
+        }
+        for (Integer vertex : expected.getVertices()) {
+            assertEquals(new HashSet<>(expected.incidentEdges(vertex)), new HashSet<>(built.incidentEdges(vertex)));
+        }
+        for (EdgeTriple<Integer, Integer> triple : triples) {
+            assertEquals(expected.getEdge(triple.vertex1(), triple.vertex2()), built.getEdge(triple.vertex1(), triple.vertex2()));
+        }
+        Integer vertex = expected.getVertices().iterator().next();
+        assertTrue(built.removeVertex(vertex));
+        assertFalse(built.isVertex(vertex));
+    }
+
+    @Test
+    public void multigraphTest() {
+        multigraphTest(Graphs.directedMultigraph());
+        multigraphTest(Graphs.undirectedMultigraph());
+    }
+
+    @Test
+    public void multigraphReadersTest() throws InterruptedException {
+        multigraphReadersTest(Graphs.directedMultigraph());
+        multigraphReadersTest(Graphs.undirectedMultigraph());
+    }
+
+    @Test
+    public void neighbourhoodTest() {
+        for (Graph<Integer, Integer> graph : List.<Graph<Integer, Integer>>of(
+                Graphs.undirectedConcurrentGraph(), Graphs.undirectedShardedGraph(3))) {
+            GraphGenerators.load(graph, GraphGenerators.grid(10, 10));
+            neighbourhoodTest(graph);
+            neighbourhoodTest(CompressedGraph.of(graph));
+            neighbourhoodTest(Graphs.subgraph(graph, v -> true, e -> true));
+        }
+
+        Graph<Integer, String> directed = Graphs.directedConcurrentGraph();
+        directed.addEdge("a", 1, 2);
+        directed.addEdge("b", 2, 3);
+        directed.addEdge("c", 3, 1);
+        directed.addEdge("d", 3, 4);
+        directed.addVertex(5);
+        for (Graph<Integer, String> graph : List.<Graph<Integer, String>>of(directed, CompressedGraph.of(directed), Graphs.directedShardedGraph(2))) {
+            if (graph.getVertexCount() == 0) {
+                for (String edge : directed.getEdges()) {
+                    List<Integer> ends = directed.incidentVertices(edge);
+                    graph.addEdge(edge, ends.get(0), ends.get(1));
+                }
+                graph.addVertex(5);
+            }
+            Neighbourhood<Integer, String> result = graph.neighbourhood(2, 2, 10, true);
+            assertEquals(List.of(2, 3, 1, 4), result.vertices());
+            assertArrayEquals(new int[]{0, 1, 2, 2}, result.distances());
+            assertEquals(Set.of("b", "c", "d", "a"), new HashSet<>(result.edges()));
+            assertEquals(List.of(2), graph.neighbourhood(2, 0, 10).vertices());
+            assertEquals(0, graph.neighbourhood(6, 3, 10).size());
+            assertEquals(1, graph.neighbourhood(5, 3, 10).size());
+        }
+    }
+
+    private void neighbourhoodTest(Graph<Integer, Integer> grid) {
+        Neighbourhood<Integer, Integer> ball = grid.neighbourhood(0, 3, 1000, true);
+        assertEquals(10, ball.size());
+        assertFalse(ball.isTruncated());
+        assertFalse(ball.edges().isEmpty());
+        for (int i = 0; i < ball.size(); i++) {
+            int vertex = ball.vertex(i);
+            assertEquals(vertex % 10 + vertex / 10, ball.distance(i));
+        }
+        int induced = 0;
+        for (Integer a : ball.vertices()) {
+            for (Integer b : ball.vertices()) {
+                if (a < b && grid.getEdge(a, b) != null) {
+                    induced++;
+                    assertTrue(ball.edges().contains(grid.getEdge(a, b)));
+                }
+            }
+        }
+        assertEquals(induced, ball.edges().size());
+        assertTrue(grid.neighbourhood(0, 3, 1000).edges().isEmpty());
+
+        Neighbourhood<Integer, Integer> capped = grid.neighbourhood(55, 20, 7);
+        assertEquals(7, capped.size());
+        assertTrue(capped.isTruncated());
+        assertEquals(Integer.valueOf(55), capped.vertex(0));
+        int[] distances = capped.distances();
+        for (int i = 1; i < distances.length; i++) {
+            assertTrue(distances[i - 1] <= distances[i]);
+            assertTrue(distances[i] <= 2);
+        }
+    }
+
+    /*
+     * 1 -a- 2 -b- 3 -c- 4 -d- 5, with the shortcuts 1 -e- 3 and 3 -f- 5 and a detour 1 -g- 6 -h- 5.
+     */
+    private void assemblyFilterGraph(Graph<Integer, String> graph) {
+        graph.addEdge("a", 1, 2);
+        graph.addEdge("b", 2, 3);
+        graph.addEdge("c", 3, 4);
+        graph.addEdge("d", 4, 5);
+        graph.addEdge("e", 1, 3);
+        graph.addEdge("f", 3, 5);
+        graph.addEdge("g", 1, 6);
+        graph.addEdge("h", 6, 5);
+    }
+
+    private void filteredPathTest(Graph<Integer, String> graph) {
+        assemblyFilterGraph(graph);
+        int unlimited = Integer.MAX_VALUE;
+
+        assertEquals(3, graph.getPath(1, 5, v -> true, e -> true, unlimited).size());
+        verifyPath(graph.getPath(1, 5, v -> v != 6, e -> true, unlimited), 1, 3, 5);
+        verifyPath(graph.getPath(1, 5, v -> v != 3, e -> true, unlimited), 1, 6, 5);
+        verifyPath(graph.getPath(1, 5, v -> v != 6, e -> !e.equals("f"), unlimited), 1, 3, 4, 5);
+        verifyPath(graph.getPath(1, 5, v -> v != 6, e -> !e.equals("f") && !e.equals("e"), unlimited), 1, 2, 3, 4, 5);
+
+        assertTrue(graph.getPath(1, 5, v -> v != 6, e -> !e.equals("f") && !e.equals("e"), 3).isEmpty());
+        assertTrue(graph.getPath(1, 5, v -> true, e -> true, 1).isEmpty());
+        assertTrue(graph.getPath(1, 5, v -> v != 5, e -> true, unlimited).isEmpty());
+        assertTrue(graph.getPath(1, 5, v -> v != 3 && v != 6, e -> true, unlimited).isEmpty());
+        verifyPath(graph.getPath(1, 2, v -> true, e -> true, 1), 1, 2);
+    }
+
+    private void subgraphTest(Graph<Integer, String> graph) {
+        assemblyFilterGraph(graph);
+        Graph<Integer, String> subgraph = Graphs.subgraph(graph, v -> v != 6, e -> !e.equals("f"));
+
+        assertEquals(5, subgraph.getVertexCount());
+        assertEquals(5, subgraph.getEdgeCount());
+        assertFalse(subgraph.isVertex(6));
+        assertFalse(subgraph.isEdge("g"));
+        assertFalse(subgraph.isEdge("f"));
+        assertNull(subgraph.getEdge(3, 5));
+        assertFalse(subgraph.isConnection(3, 5));
+        assertTrue(subgraph.isConnection(3, 4));
+        assertEquals(2, subgraph.incidentEdges(1).size());
+        verifyPath(subgraph.getPath(1, 5), 1, 3, 4, 5);
+        verifyPath(subgraph.getPath(1, 5, v -> v != 3, e -> true, Integer.MAX_VALUE));
+
+        // the view sees later changes to the parent
+        graph.addEdge("i", 1, 5);
+        verifyPath(subgraph.getPath(1, 5), 1, 5);
+        assertEquals(6, CompactGraph.of(subgraph).getArcCount() / (graph.isDirectedGraph() ? 1 : 2));
+        verifyGraphConnections(subgraph);
+    }
+
+    private void removeDirectedTest(Graph<Integer, String> graph) {
+        graph.addEdge("a", 1, 2);
+        graph.addEdge("b", 2, 3);
+        graph.addEdge("c", 3, 1);
+        graph.addEdge("d", 1, 4);
+        graph.addEdge("e", 4, 3);
+        graph.addEdge("f", 2, 2);
+
+        assertFalse(graph.removeEdge("x"));
+        assertTrue(graph.removeEdge("a"));
+        assertFalse(graph.removeEdge("a"));
+        assertFalse(graph.isEdge("a"));
+        assertFalse(graph.isConnection(1, 2));
+        assertEquals(5, graph.getEdgeCount());
+        verifyPath(graph.getPath(1, 3), 1, 4, 3);
+
+        assertTrue(graph.removeVertex(4));
+        assertFalse(graph.removeVertex(4));
+        assertFalse(graph.isVertex(4));
+        assertEquals(3, graph.getVertexCount());
+        assertEquals(3, graph.getEdgeCount());
+        assertFalse(graph.isEdge("d"));
+        assertFalse(graph.isEdge("e"));
+        assertNull(graph.getEdge(1, 4));
+        assertTrue(graph.getPath(1, 3).isEmpty());
+        assertTrue(graph.incidentEdges(1).isEmpty());
+
+        assertTrue(graph.removeVertex(2));
+        assertFalse(graph.isEdge("b"));
+        assertFalse(graph.isEdge("f"));
+        assertEquals(1, graph.getEdgeCount());
+
+        // a removed vertex comes back without any of its old edges
+        assertTrue(graph.addVertex(4));
+        assertTrue(graph.incidentEdges(4).isEmpty());
+        assertTrue(graph.addEdge("d", 1, 4));
+        verifyPath(graph.getPath(3, 4), 3, 1, 4);
+        assertEquals(3, graph.getVertexCount());
+        assertEquals(2, graph.getEdgeCount());
+        verifyGraphConnections(graph);
+    }
+
+    private void removeReAddTest(Graph<Integer, String> graph) {
+        for (int v = 1; v <= 100; v++) {
+            graph.addEdge("in" + v, v, 0);
+        }
+        for (int round = 0; round < 50; round++) {
+            assertTrue(graph.removeVertex(0));
+            assertTrue(graph.addVertex(0));
+            assertEquals(0, graph.getEdgeCount());
+            assertNull(graph.getEdge(1, 0));
+            assertTrue(graph.addEdge("round" + round, round + 1, 0));
+            assertTrue(graph.addEdge("in" + (round + 1), 0, round + 1));
+            assertEquals(List.of(0, round + 1), graph.incidentVertices("in" + (round + 1)));
+            assertEquals(2, graph.getEdgeCount());
+            assertEquals(2, graph.getEdges().size());
+            assertFalse(graph.isConnection(round + 2, 0));
+            assertEquals("round" + round, graph.getEdge(round + 1, 0));
+            assertEquals(List.of("round" + round), new ArrayList<>(graph.connectingEdges(round + 1, 0)));
+            assertTrue(graph.connectingEdges(0, round + 2).isEmpty());
+            if (round > 0) {
+                assertNull(graph.getEdge(round, 0));
+                assertEquals(Set.of("in" + (round + 1)), new HashSet<>(graph.incidentEdges(0)));
+                assertTrue(graph.incidentEdges(round).isEmpty());
+            }
+        }
+        verifyGraphConnections(graph);
+    }
+
+    private void removeUndirectedTest(Graph<Integer, String> graph) {
+        graph.addEdge("a", 1, 2);
+        graph.addEdge("b", 2, 3);
+        graph.addEdge("c", 3, 4);
+        graph.addEdge("d", 4, 1);
+
+        assertTrue(graph.removeEdge("a"));
+        assertFalse(graph.isConnection(2, 1));
+        assertEquals(3, graph.getEdgeCount());
+        verifyPath(graph.getPath(1, 2), 1, 4, 3, 2);
+
+        assertTrue(graph.removeVertex(3));
+        assertEquals(3, graph.getVertexCount());
+        assertEquals(1, graph.getEdgeCount());
+        assertTrue(graph.incidentEdges(2).isEmpty());
+        assertTrue(graph.getPath(1, 2).isEmpty());
+
+        assertTrue(graph.addEdge("b", 3, 2));
+        assertTrue(graph.addEdge("a", 2, 1));
+        verifyPath(graph.getPath(3, 4), 3, 2, 1, 4);
+        assertEquals(3, graph.getEdgeCount());
+        verifyGraphConnections(graph);
+    }
+
+    private void multigraphTest(Graph<Integer, String> graph) {
+        assertTrue(graph.addEdge("a", 1, 2));
+        assertTrue(graph.addEdge("b", 1, 2));
+        assertTrue(graph.addEdge("c", 2, 1));
+        assertTrue(graph.addEdge("loop", 2, 2));
+        assertFalse(graph.addEdge("a", 2, 3));
+        assertEquals(4, graph.getEdgeCount());
+        assertEquals(List.of(1, 2), graph.incidentVertices("b"));
+
+        Set<String> forward = graph.isDirectedGraph() ? Set.of("a", "b") : Set.of("a", "b", "c");
+        assertEquals(forward, new HashSet<>(graph.connectingEdges(1, 2)));
+        assertEquals(Set.of("loop"), new HashSet<>(graph.connectingEdges(2, 2)));
+        assertTrue(forward.contains(graph.getEdge(1, 2)));
+        assertEquals(graph.isDirectedGraph() ? 2 : 3, graph.incidentEdges(1).size());
+
+        assertTrue(graph.removeEdge("a"));
+        assertTrue(graph.isConnection(1, 2));
+        assertTrue(graph.removeEdge("b"));
+        assertEquals(!graph.isDirectedGraph(), graph.isConnection(1, 2));
+        assertTrue(graph.addEdge("a", 3, 1));
+        assertEquals(List.of(3, 1), graph.incidentVertices("a"));
+        assertTrue(graph.addEdge("d", 1, 2));
+        verifyPath(graph.getPath(3, 2), 3, 1, 2);
+
+        assertTrue(graph.removeVertex(1));
+        assertEquals(1, graph.getEdgeCount());
+        assertTrue(graph.incidentEdges(3).isEmpty());
+        assertEquals(List.of("loop"), new ArrayList<>(graph.incidentEdges(2)));
+
+        // lookups at a vertex with many incident edges go through its hash index
+        for (int i = 0; i < 600; i++) {
+            assertTrue(graph.addEdge("hub" + i, 0, 100 + i % 200));
+        }
+        assertTrue(graph.removeEdge("hub7"));
+        assertTrue(graph.addEdge("hub7", 0, 5));
+        for (int v = 100; v < 300; v++) {
+            assertEquals(v == 107 ? 2 : 3, graph.connectingEdges(0, v).size());
+        }
+        assertEquals(List.of("hub7"), new ArrayList<>(graph.connectingEdges(0, 5)));
+        assertEquals(graph.isDirectedGraph() ? 0 : 3, graph.connectingEdges(100, 0).size());
+        assertNull(graph.getEdge(0, 2));
+        assertEquals(201, graph.neighbourhood(0, 1, 1000).size() - 1);
+
+        CompactGraph<Integer> compact = CompactGraph.of(graph);
+        assertEquals(201, compact.degree(compact.id(0)));
+
+        for (int i = 0; i < 600; i += 2) {
+            assertTrue(graph.removeEdge("hub" + i));
+        }
+        for (int v = 100; v < 300; v++) {
+            int expected = v % 2 == 0 ? 0 : v == 107 ? 2 : 3;
+            assertEquals(expected, graph.connectingEdges(0, v).size());
+            assertEquals(expected > 0, graph.isConnection(0, v));
+        }
+        for (int i = 9; i < 600; i += 2) {
+            assertTrue(graph.removeEdge("hub" + i));
+        }
+        assertEquals(Set.of("hub1", "hub3", "hub5", "hub7"), new HashSet<>(graph.incidentEdges(0)));
+        assertEquals(List.of("hub7"), new ArrayList<>(graph.connectingEdges(0, 5)));
+    }
+
+    private void multigraphReadersTest(Graph<Integer, Integer> graph) throws InterruptedException {
+        final int THREAD_COUNT = 4;
+        final int VERTEX_COUNT = 500;
+        for (int edge = 0; edge < 4 * VERTEX_COUNT; edge++) {
+            graph.addEdge(edge, 0, 1 + edge % VERTEX_COUNT);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    for (int v = 1; v <= VERTEX_COUNT; v++) {
+                        if (graph.getEdge(0, v) == null || graph.connectingEdges(0, v).size() < 4) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        // grows and shrinks the hub, rebuilding its table several times
+        int next = 4 * VERTEX_COUNT;
+        for (int round = 0; round < 20; round++) {
+            int from = next;
+            for (int i = 0; i < 4 * VERTEX_COUNT; i++) {
+                graph.addEdge(next++, 0, VERTEX_COUNT + 1 + i);
+            }
+            for (int edge = from; edge < next; edge++) {
+                graph.removeEdge(edge);
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, misses.get());
+        assertEquals(4 * VERTEX_COUNT, graph.getEdgeCount());
+    }
+
+    private void removeCompactionTest(Graph<Integer, Integer> graph) {
+        int hubs = 50;
+        int edge = 0;
+        for (int v = 0; v < 2000; v++) {
+            for (int hub = 0; hub < 5; hub++) {
+                graph.addEdge(edge++, hub, hubs + v);
+                graph.addEdge(edge++, hubs + v, hub);
+            }
+        }
+        for (int v = 0; v < 2000; v += 2) {
+            assertTrue(graph.removeVertex(hubs + v));
+        }
+        if (graph instanceof AbstractConcurrentGraph) {
+            ((AbstractConcurrentGraph<Integer, Integer>) graph).compact();
+        } else {
+            ((ShardedConcurrentGraph<Integer, Integer>) graph).compact();
+        }
+
+        int expected = graph.isDirectedGraph() ? 1000 * 10 : 1000 * 5;
+        assertEquals(1000 + 5, graph.getVertexCount());
+        assertEquals(expected, graph.getEdgeCount());
+        assertEquals(expected, graph.getEdges().size());
+        assertEquals(1000, graph.incidentEdges(0).size());
+        assertTrue(graph.getPath(0, hubs).isEmpty());
+        verifyPath(graph.getPath(0, 1), 0, hubs + 1, 1);
+    }
+
+    private void pathDirectedGraphTest(Graph<Integer, Object> graph) {
         assemblyGraph(graph);
 /*
                   (3)---------------*(4)-------*(5)
@@ -50,9 +566,7 @@ public class GraphTest {
         verifyPath(graph.getPath(9, 9), 9, 9);
     }
 
-    @Test
-    public void pathUndirectedGraphTest() {
-        Graph<Integer, Object> graph = Graphs.undirectedConcurrentGraph();
+    private void pathUndirectedGraphTest(Graph<Integer, Object> graph) {
         assemblyGraph(graph);
 /*
                   (3)----------------(4)--------(5)
@@ -88,24 +602,6 @@ public class GraphTest {
         verifyPath(graph.getPath(9, 9), 9, 9);
     }
 
-    @Test
-    public void addVertexTest() {
-        addVertexTest(new GraphHelper<>(false));
-        addVertexTest(new GraphHelper<>(true));
-    }
-
-    @Test
-    public void addEdgeTest() {
-        addEdgeTest(new GraphHelper<>(false));
-        addEdgeTest(new GraphHelper<>(true));
-    }
-
-    @Test
-    public void concurrentGraphTest() throws InterruptedException {
-        concurrentGraphTest(Graphs.directedConcurrentGraph());
-        concurrentGraphTest(Graphs.undirectedConcurrentGraph());
-    }
-
     private void concurrentGraphTest(Graph<Integer, Integer> graph) throws InterruptedException {
         final int THREAD_COUNT = 5;
         final int EDGE_COUNT = 500;
@@ -0,0 +1,164 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PagedGraphFactoryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void matchesInMemoryGraphTest() throws IOException {
+        // 8 entries per page and 6 frames, so nearly every list is evicted and read back
+        try (PagedGraphFactory<Integer, Integer> factory = PagedGraphFactory.open(folder.getRoot().toPath(), 64, 6, 4)) {
+            compare(Graphs.directedConcurrentGraph(), Graphs.directedConcurrentGraph(factory));
+            compare(Graphs.undirectedConcurrentGraph(), Graphs.undirectedConcurrentGraph(factory));
+            compare(Graphs.directedConcurrentGraph(), Graphs.directedShardedGraph(factory, 3));
+
+            PageCacheStats stats = factory.stats();
+            assertTrue(stats.misses() > 0);
+            assertTrue(stats.evictions() > 0);
+            assertTrue(stats.hitRate() > 0 && stats.hitRate() < 1);
+        }
+    }
+
+    @Test
+    public void removalTest() throws IOException {
+        try (PagedGraphFactory<Integer, Integer> factory = PagedGraphFactory.open(folder.getRoot().toPath(), 64, 4, 0)) {
+            Graph<Integer, Integer> graph = Graphs.directedConcurrentGraph(factory);
+            for (int v = 1; v <= 20; v++) {
+                graph.addEdge(v, 0, v);
+                graph.addEdge(100 + v, v, 0);
+            }
+            assertTrue(graph.removeEdge(5));
+            assertFalse(graph.isConnection(0, 5));
+            assertTrue(graph.isConnection(5, 0));
+            assertEquals(19, graph.incidentEdges(0).size());
+
+            assertTrue(graph.removeVertex(0));
+            assertEquals(0, graph.getEdgeCount());
+            assertTrue(graph.incidentEdges(7).isEmpty());
+            ((AbstractConcurrentGraph<Integer, Integer>) graph).compact();
+            assertEquals(0, graph.getEdgeCount());
+            assertEquals(20, graph.getVertexCount());
+
+            assertTrue(graph.addEdge(5, 7, 0));
+            assertEquals(List.of(7, 0), graph.getPath(7, 0));
+            assertTrue(graph.getPath(0, 7).isEmpty());
+        }
+    }
+
+    @Test
+    public void reAddAfterRemovalTest() throws IOException {
+        try (PagedGraphFactory<Integer, Integer> factory = PagedGraphFactory.open(folder.getRoot().toPath(), 64, 4, 0)) {
+            Graph<Integer, Integer> graph = Graphs.directedConcurrentGraph(factory);
+            for (int v = 1; v <= 20; v++) {
+                graph.addEdge(v, v, 0);
+                graph.addEdge(100 + v, v, v + 1);
+            }
+            assertTrue(graph.removeVertex(0));
+            assertEquals(20, graph.getEdgeCount());
+
+            // edge 3 still has a dead entry 3 -> 0; only that entry is dropped
+            assertTrue(graph.addEdge(3, 3, 50));
+            assertEquals(21, graph.getEdgeCount());
+            assertEquals(Set.of(3, 103), new HashSet<>(graph.incidentEdges(3)));
+            assertEquals(List.of(3, 50), graph.getPath(3, 50));
+
+            for (int v = 1; v <= 20; v++) {
+                graph.addEdge(v, v, 60);
+            }
+            assertEquals(40, graph.getEdgeCount());
+            assertTrue(graph.addEdge(0, 0, 1));
+            assertEquals(List.of(0, 1, 2), graph.getPath(0, 2));
+            assertEquals(Set.of(1, 101), new HashSet<>(graph.incidentEdges(1)));
+        }
+    }
+
+    @Test
+    public void bfsReadAheadTest() throws IOException, InterruptedException {
+        try (PagedGraphFactory<Integer, Integer> factory = PagedGraphFactory.open(folder.getRoot().toPath(), 64, 64, 16)) {
+            Graph<Integer, Integer> graph = Graphs.undirectedConcurrentGraph(factory);
+            GraphGenerators.load(graph, GraphGenerators.grid(40, 40));
+
+            assertEquals(79, graph.getPath(0, 40 * 40 - 1).size());
+            // prefetching is asynchronous
+            for (int i = 0; i < 100 && factory.stats().prefetches() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(factory.stats().prefetches() > 0);
+        }
+    }
+
+    @Test
+    public void prefetchAfterCloseTest() throws IOException, InterruptedException {
+        Path file = folder.newFile().toPath();
+        PageCache cache = new PageCache(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE), 64, 16);
+        int[] pages = new int[8];
+        for (int i = 0; i < 24; i++) {
+            int page = cache.allocate();
+            if (i < pages.length) {
+                pages[i] = page;
+            }
+        }
+        // the first eight pages are evicted; repeated requests for them are coalesced
+        for (int i = 0; i < 1000; i++) {
+            cache.prefetch(pages, pages.length);
+        }
+        for (int i = 0; i < 100 && cache.stats().prefetches() < pages.length; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(pages.length, cache.stats().prefetches());
+
+        cache.close();
+        cache.prefetch(new int[]{100, 101}, 2);
+    }
+
+    private static void compare(Graph<Integer, Integer> expected, Graph<Integer, Integer> actual) {
+        Random rnd = new Random(7);
+        int edge = 0;
+        for (int i = 0; i < 3000; i++) {
+            int vertex1 = rnd.nextInt(60);
+            int vertex2 = rnd.nextInt(60);
+            switch (rnd.nextInt(10)) {
+                case 0:
+                    assertEquals(expected.removeVertex(vertex1), actual.removeVertex(vertex1));
+                    break;
+                case 1:
+                case 2:
+                    int removed = rnd.nextInt(edge + 1);
+                    assertEquals(expected.removeEdge(removed), actual.removeEdge(removed));
+                    break;
+                default:
+                    assertEquals(expected.addEdge(edge, vertex1, vertex2), actual.addEdge(edge, vertex1, vertex2));
+                    edge++;
+                    break;
+            }
+        }
+
+        assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        assertEquals(new HashSet<>(expected.getEdges()), new HashSet<>(actual.getEdges()));
+        for (Integer vertex : expected.getVertices()) {
+            assertEquals(new HashSet<>(expected.incidentEdges(vertex)), new HashSet<>(actual.incidentEdges(vertex)));
+            for (int target = 0; target < 60; target += 7) {
+                assertEquals(expected.getPath(vertex, target).size(), actual.getPath(vertex, target).size());
+            }
+        }
+        for (Integer e : expected.getEdges()) {
+            assertEquals(expected.incidentVertices(e), actual.incidentVertices(e));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.io.*;
+
+import static com.gohostmirror.util.graph.DurableGraphTest.INT_CODEC;
+import static com.gohostmirror.util.graph.DurableGraphTest.STRING_CODEC;
+import static org.junit.Assert.*;
+
+public class ReplicationTest {
+    @Test
+    public void deltaTest() throws IOException {
+        ReplicationSource<Integer, String> source =
+                new ReplicationSource<>(Graphs.directedConcurrentGraph(), INT_CODEC, STRING_CODEC);
+        GraphReplica<Integer, String> replica =
+                new GraphReplica<>(Graphs.directedConcurrentGraph(), INT_CODEC, STRING_CODEC);
+
+        assertTrue(source.addVertex(100));
+        assertTrue(source.addEdge("a", 1, 2));
+        assertFalse(source.addEdge("a", 2, 3));
+        assertEquals(2, source.version());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, source.writeDelta(replica.version(), out));
+        assertTrue(source.addEdge("b", 2, 3));
+        source.writeDelta(2, out);
+        source.writeDelta(3, out);
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(2, replica.apply(in));
+        assertEquals("a", replica.graph().getEdge(1, 2));
+        assertEquals(3, replica.apply(in));
+        assertEquals(3, replica.apply(in));
+        verifySame(source, replica.graph());
+
+        try {
+            new GraphReplica<>(Graphs.directedConcurrentGraph(), INT_CODEC, STRING_CODEC)
+                    .apply(new ByteArrayInputStream(out.toByteArray(), 0, 0));
+            fail();
+        } catch (EOFException ignore) {}
+    }
+
+    @Test
+    public void snapshotTest() throws IOException {
+        ReplicationSource<Integer, String> source =
+                new ReplicationSource<>(Graphs.undirectedConcurrentGraph(), INT_CODEC, STRING_CODEC, 4);
+        GraphReplica<Integer, String> replica =
+                new GraphReplica<>(Graphs.undirectedConcurrentGraph(), INT_CODEC, STRING_CODEC);
+
+        assertTrue(source.addEdge("e0", 0, 1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        source.writeDelta(replica.version(), out);
+        replica.apply(new ByteArrayInputStream(out.toByteArray()));
+
+        for (int i = 1; i < 10; i++) {
+            assertTrue(source.addEdge("e" + i, i, i + 1));
+        }
+        out.reset();
+        source.writeDelta(replica.version(), out);
+        assertEquals(10, replica.apply(new ByteArrayInputStream(out.toByteArray())));
+        verifySame(source, replica.graph());
+
+        // removals arrive in deltas, and a snapshot drops what the replica has but the source no longer does
+        assertTrue(source.removeEdge("e9"));
+        out.reset();
+        source.writeDelta(replica.version(), out);
+        assertEquals(11, replica.apply(new ByteArrayInputStream(out.toByteArray())));
+        verifySame(source, replica.graph());
+
+        assertTrue(source.removeVertex(5));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(source.addVertex(100 + i));
+        }
+        out.reset();
+        source.writeDelta(replica.version(), out);
+        replica.apply(new ByteArrayInputStream(out.toByteArray()));
+        assertFalse(replica.graph().isVertex(5));
+        verifySame(source, replica.graph());
+    }
+
+    @Test
+    public void pipeTest() throws Exception {
+        ReplicationSource<Integer, String> source =
+                new ReplicationSource<>(Graphs.directedConcurrentGraph(), INT_CODEC, STRING_CODEC, 16);
+        GraphReplica<Integer, String> replica =
+                new GraphReplica<>(Graphs.directedConcurrentGraph(), INT_CODEC, STRING_CODEC);
+        PipedOutputStream out = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(out, 1 << 16);
+
+        Thread follower = new Thread(() -> {
+            try {
+                while (true) {
+                    replica.apply(in);
+                }
+            } catch (IOException ignore) {}
+        });
+        follower.start();
+
+        long version = 0;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(source.addEdge("e" + i, i % 17, i));
+            if (i % 10 == 9) {
+                version = source.writeDelta(version, out);
+            }
+        }
+        out.close();
+        follower.join();
+
+        assertEquals(100, replica.version());
+        verifySame(source, replica.graph());
+    }
+
+    private static void verifySame(Graph<Integer, String> expected, Graph<Integer, String> actual) {
+        assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        for (String edge : expected.getEdges()) {
+            assertEquals(expected.incidentVertices(edge), actual.incidentVertices(edge));
+        }
+    }
+}
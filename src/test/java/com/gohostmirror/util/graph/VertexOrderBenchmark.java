@@ -0,0 +1,182 @@
+package com.gohostmirror.util.graph;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/*
+ * Full-graph BFS over CompactGraph snapshots of one graph under every VertexOrder. Vertex
+ * labels are shuffled before loading so that INSERTION starts from scattered ids, as for a
+ * graph that grew in arbitrary order. Prints one JSON object per order with the mean
+ * |id - neighbour id| gap and the best BFS time.
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:<jetbrains annotations jar> \
+ *       com.gohostmirror.util.graph.VertexOrderBenchmark generator=grid vertices=4000000 rounds=5
+ *
+ * generator: er | powerlaw | grid
+ */
+public class VertexOrderBenchmark {
+    static class Config {
+        String generator = "grid";
+        int vertices = 1_000_000;
+        int degree = 8;
+        int rounds = 5;
+        int sources = 4;
+        long seed = 42;
+
+        static @NotNull Config parse(@NotNull String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (split < 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                String value = arg.substring(split + 1);
+                switch (arg.substring(0, split)) {
+                    case "generator": config.generator = value; break;
+                    case "vertices": config.vertices = Integer.parseInt(value); break;
+                    case "degree": config.degree = Integer.parseInt(value); break;
+                    case "rounds": config.rounds = Integer.parseInt(value); break;
+                    case "sources": config.sources = Integer.parseInt(value); break;
+                    case "seed": config.seed = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return config;
+        }
+    }
+
+    static class Result {
+        final VertexOrder order;
+        final double meanGap;
+        final double bfsMillis;
+        final double reorderMillis;
+
+        Result(VertexOrder order, double meanGap, double bfsMillis, double reorderMillis) {
+            this.order = order;
+            this.meanGap = meanGap;
+            this.bfsMillis = bfsMillis;
+            this.reorderMillis = reorderMillis;
+        }
+    }
+
+    public static void main(String[] args) {
+        Config config = Config.parse(args);
+        print(config, run(config), System.out);
+    }
+
+    static @NotNull List<Result> run(@NotNull Config config) {
+        int[] pairs = generate(config);
+        int n = 0;
+        for (int vertex : pairs) {
+            n = Math.max(n, vertex + 1);
+        }
+        int[] labels = new int[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = i;
+        }
+        Random rnd = new Random(config.seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int swap = labels[i];
+            labels[i] = labels[j];
+            labels[j] = swap;
+        }
+        Graph<Integer, Integer> graph = Graphs.undirectedConcurrentGraph();
+        for (int vertex : labels) {
+            graph.addVertex(vertex);
+        }
+        for (int i = 0; i < pairs.length; i += 2) {
+            graph.addEdge(i / 2, labels[pairs[i]], labels[pairs[i + 1]]);
+        }
+
+        CompactGraph<Integer> snapshot = CompactGraph.of(graph);
+        List<Result> results = new ArrayList<>();
+        for (VertexOrder order : VertexOrder.values()) {
+            long begin = System.nanoTime();
+            CompactGraph<Integer> compact = snapshot.reorder(order);
+            double reorderMillis = (System.nanoTime() - begin) / 1e6;
+            int[] sources = new int[config.sources];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = compact.id(labels[i * (n / sources.length)]);
+            }
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < config.rounds; round++) {
+                long start = System.nanoTime();
+                for (int source : sources) {
+                    bfs(compact, source);
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            results.add(new Result(order, meanGap(compact), best / 1e6, reorderMillis));
+        }
+        return results;
+    }
+
+    static void print(@NotNull Config config, @NotNull List<Result> results, @NotNull PrintStream out) {
+        double baseline = results.get(0).bfsMillis;
+        for (Result result : results) {
+            out.printf(Locale.ROOT,
+                    "{\"generator\":\"%s\",\"vertices\":%d,\"order\":\"%s\",\"meanGap\":%.1f," +
+                            "\"bfsMs\":%.2f,\"speedup\":%.2f,\"reorderMs\":%.2f}%n",
+                    config.generator, config.vertices, result.order, result.meanGap,
+                    result.bfsMillis, baseline / result.bfsMillis, result.reorderMillis);
+        }
+    }
+
+    private static @NotNull int[] generate(@NotNull Config config) {
+        switch (config.generator) {
+            case "er":
+                return GraphGenerators.erdosRenyi(config.vertices, config.vertices * config.degree / 2, config.seed);
+            case "powerlaw":
+                return GraphGenerators.powerLaw(config.vertices, config.degree / 2, config.seed);
+            case "grid": {
+                int side = (int) Math.ceil(Math.sqrt(config.vertices));
+                return GraphGenerators.grid(side, side);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown generator: " + config.generator);
+        }
+    }
+
+    private static int bfs(@NotNull CompactGraph<?> graph, int source) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] distances = new int[graph.getVertexCount()];
+        int[] queue = new int[graph.getVertexCount()];
+        Arrays.fill(distances, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        distances[source] = 0;
+        while (head < tail) {
+            int vertex = queue[head++];
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                int target = targets[i];
+                if (distances[target] < 0) {
+                    distances[target] = distances[vertex] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return tail;
+    }
+
+    static double meanGap(@NotNull CompactGraph<?> graph) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long total = 0;
+        for (int id = 0; id < graph.getVertexCount(); id++) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                total += Math.abs(targets[i] - id);
+            }
+        }
+        return targets.length == 0 ? 0 : (double) total / targets.length;
+    }
+}
@@ -0,0 +1,95 @@
+package com.gohostmirror.util.graph;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class VertexOrderTest {
+    @Test
+    public void preservesTopologyTest() {
+        int[] pairs = GraphGenerators.erdosRenyi(500, 1500, 9);
+        for (Graph<Integer, Integer> source : List.<Graph<Integer, Integer>>of(
+                Graphs.directedConcurrentGraph(), Graphs.undirectedConcurrentGraph())) {
+            GraphGenerators.load(source, pairs);
+            source.addVertex(1000);
+            CompactGraph<Integer> original = CompactGraph.of(source);
+            for (VertexOrder order : VertexOrder.values()) {
+                CompactGraph<Integer> reordered = CompactGraph.of(source, order);
+                assertEquals(original.getVertexCount(), reordered.getVertexCount());
+                assertEquals(original.getArcCount(), reordered.getArcCount());
+                Set<Integer> ids = new HashSet<>();
+                for (int id = 0; id < original.getVertexCount(); id++) {
+                    Integer vertex = original.vertex(id);
+                    int newId = reordered.id(vertex);
+                    assertEquals(vertex, reordered.vertex(newId));
+                    ids.add(newId);
+                    assertEquals(labels(original, original.neighbours(id)), labels(reordered, reordered.neighbours(newId)));
+                    int[] neighbours = reordered.neighbours(newId);
+                    for (int i = 1; i < neighbours.length; i++) {
+                        assertTrue(neighbours[i - 1] <= neighbours[i]);
+                    }
+                }
+                assertEquals(original.getVertexCount(), ids.size());
+                assertEquals(labels(original.transpose(), original.transpose().neighbours(original.id(7))),
+                        labels(reordered.transpose(), reordered.transpose().neighbours(reordered.id(7))));
+            }
+        }
+    }
+
+    @Test
+    public void localityTest() {
+        List<VertexOrderBenchmark.Result> results = VertexOrderBenchmark.run(
+                VertexOrderBenchmark.Config.parse(new String[]{"generator=grid", "vertices=2500", "rounds=1"}));
+        assertEquals(VertexOrder.values().length, results.size());
+        double insertion = results.get(VertexOrder.INSERTION.ordinal()).meanGap;
+        assertTrue(results.get(VertexOrder.BFS.ordinal()).meanGap * 10 < insertion);
+        assertTrue(results.get(VertexOrder.REVERSE_CUTHILL_MCKEE.ordinal()).meanGap <= 50);
+
+        Graph<Integer, Integer> star = Graphs.undirectedConcurrentGraph();
+        for (int i = 1; i < 10; i++) {
+            star.addEdge(i, i, 0);
+        }
+        assertEquals(Integer.valueOf(0), CompactGraph.of(star, VertexOrder.DEGREE).vertex(0));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VertexOrderBenchmark.print(new VertexOrderBenchmark.Config(), results, new PrintStream(out));
+        assertTrue(out.toString().startsWith("{\"generator\":\"grid\""));
+    }
+
+    @Test
+    public void peripheralStartTest() {
+        // a 3 x 100 ladder with a pendant on its middle: the pendant has the minimum degree,
+        // but starting there gives levels twice as wide (bandwidth 7) as starting from an end
+        Graph<Integer, Integer> graph = Graphs.undirectedConcurrentGraph();
+        graph.addEdge(-1, -1, 150);
+        GraphGenerators.load(graph, GraphGenerators.grid(3, 100));
+        CompactGraph<Integer> reordered = CompactGraph.of(graph, VertexOrder.REVERSE_CUTHILL_MCKEE);
+        int vertex = reordered.vertex(reordered.getVertexCount() - 1);
+        assertTrue(vertex < 3 || vertex >= 297);
+        assertTrue(bandwidth(reordered) <= 5);
+    }
+
+    private static int bandwidth(CompactGraph<Integer> graph) {
+        int bandwidth = 0;
+        for (int id = 0; id < graph.getVertexCount(); id++) {
+            for (int neighbour : graph.neighbours(id)) {
+                bandwidth = Math.max(bandwidth, Math.abs(neighbour - id));
+            }
+        }
+        return bandwidth;
+    }
+
+    private static Set<Integer> labels(CompactGraph<Integer> graph, int[] ids) {
+        Set<Integer> result = new HashSet<>();
+        for (int id : ids) {
+            result.add(graph.vertex(id));
+        }
+        return result;
+    }
+}